@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import rrt.ASVConfig;
+import rrt.AnytimePlanner;
+import rrt.ProblemSpec;
+
+/**
+ * Records how the cost of the anytime planner's path falls over time. Each
+ * problem is planned with the same seed for the given number of seconds, and
+ * the cost at every improvement is printed as CSV, together with the final
+ * cost of the densified path as computed by ProblemSpec.
+ *
+ * Usage: AnytimeBenchmark [-s seconds] [problem-file ...]
+ * Without problem files, all problems of the testcases directory are run.
+ */
+public class AnytimeBenchmark {
+    private static final double DEFAULT_SECONDS = 10;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        double seconds = DEFAULT_SECONDS;
+        int first = 0;
+        if (args.length > 1 && args[0].equals("-s")) {
+            seconds = Double.valueOf(args[1]);
+            first = 2;
+        }
+        String[] problems = Arrays.copyOfRange(args, first, args.length);
+        if (problems.length == 0) {
+            File[] files = new File("testcases").listFiles();
+            Arrays.sort(files);
+            problems = new String[files.length];
+            for (int i = 0; i < files.length; i++) {
+                problems[i] = files[i].getPath();
+            }
+        }
+        System.out.println("problem,seconds,cost");
+        for (String problem: problems) {
+            ProblemSpec ps = new ProblemSpec();
+            ps.loadProblem(problem);
+            AnytimePlanner planner = new AnytimePlanner(ps, SEED);
+            List<ASVConfig> path = planner.plan(System.nanoTime() + (long) (seconds * 1e9));
+            for (double[] point : planner.getCurve()) {
+                System.out.println(String.format("%s,%.3f,%.4f", problem, point[0], point[1]));
+            }
+            if (path == null) {
+                System.err.println(problem + ": no path found");
+                continue;
+            }
+            ps.setPath(path);
+            System.err.println(String.format("%s: %d improvements, final cost %.4f, %d samples",
+                    problem, planner.getCurve().size(), ps.getSolutionCost(), planner.getSamples()));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import rrt.ASVConfig;
+import rrt.Obstacle;
+import rrt.ObstacleGrid;
+import rrt.Test;
+
+/**
+ * Compares collision checking against every obstacle with checking only the
+ * candidates returned by the obstacle grid, for growing numbers of random
+ * rectangular obstacles. Both must give the same verdict for every state.
+ * 
+ * Usage: ObstacleGridBenchmark [asvCount]
+ */
+public class ObstacleGridBenchmark {
+    private static final int[] OBSTACLE_COUNTS = {10, 100, 1000, 10000};
+    private static final int STATES = 20000;
+    private static final double BOOM_LENGTH = 0.05;
+
+    public static void main(String[] args) {
+        int asvCount = args.length > 0? Integer.parseInt(args[0]) : 10;
+        Random rand = new Random(42);
+        Test test = new Test(Test.DEFAULT_MAX_ERROR);
+        
+        System.out.println("asvs: " + asvCount + ", states: " + STATES);
+        System.out.println(String.format("%10s %14s %14s %10s %10s", 
+                "obstacles", "all (us/cfg)", "grid (us/cfg)", "speedup", "colliding"));
+        for (int n: OBSTACLE_COUNTS) {
+            List<Obstacle> obstacles = randomObstacles(n, rand);
+            ObstacleGrid grid = new ObstacleGrid(obstacles);
+            ASVConfig[] states = new ASVConfig[STATES];
+            for (int i = 0; i < STATES; i++) {
+                states[i] = randomState(asvCount, rand);
+            }
+            // warm up both methods before timing
+            for (int i = 0; i < 2000; i++) {
+                test.hasCollision(states[i], obstacles);
+                test.hasCollision(states[i], grid);
+            }
+            
+            boolean[] expected = new boolean[STATES];
+            long start = System.nanoTime();
+            for (int i = 0; i < STATES; i++) {
+                expected[i] = test.hasCollision(states[i], obstacles);
+            }
+            double allTime = (System.nanoTime() - start) / 1e3 / STATES;
+            
+            boolean[] actual = new boolean[STATES];
+            start = System.nanoTime();
+            for (int i = 0; i < STATES; i++) {
+                actual[i] = test.hasCollision(states[i], grid);
+            }
+            double gridTime = (System.nanoTime() - start) / 1e3 / STATES;
+            
+            int colliding = 0;
+            for (int i = 0; i < STATES; i++) {
+                if (expected[i] != actual[i]) {
+                    throw new IllegalStateException("mismatch at state " + i);
+                }
+                if (expected[i]) colliding++;
+            }
+            System.out.println(String.format("%10d %14.2f %14.2f %9.1fx %10d", 
+                    n, allTime, gridTime, allTime / gridTime, colliding));
+        }
+    }
+    
+    /*
+     * small rectangles covering roughly a fifth of the workspace in total
+     */
+    private static List<Obstacle> randomObstacles(int n, Random rand) {
+        List<Obstacle> obstacles = new ArrayList<Obstacle>();
+        double size = 0.45 / Math.sqrt(n);
+        for (int i = 0; i < n; i++) {
+            double w = size * (0.5 + rand.nextDouble());
+            double h = size * (0.5 + rand.nextDouble());
+            obstacles.add(new Obstacle(rand.nextDouble() * (1 - w), 
+                    rand.nextDouble() * (1 - h), w, h));
+        }
+        return obstacles;
+    }
+    
+    /*
+     * a chain of booms turning by a random angle at every joint
+     */
+    private static ASVConfig randomState(int asvCount, Random rand) {
+        double[] coords = new double[asvCount * 2];
+        coords[0] = rand.nextDouble();
+        coords[1] = rand.nextDouble();
+        double angle = rand.nextDouble() * 2 * Math.PI;
+        for (int i = 1; i < asvCount; i++) {
+            angle += rand.nextDouble() * 2 * Math.PI / asvCount;
+            coords[2*i] = coords[2*i-2] + BOOM_LENGTH * Math.cos(angle);
+            coords[2*i+1] = coords[2*i-1] + BOOM_LENGTH * Math.sin(angle);
+        }
+        return new ASVConfig(coords);
+    }
+}
@@ -0,0 +1,557 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import rrt.ASVConfig;
+import rrt.Planner;
+import rrt.ProblemSpec;
+import rrt.SolutionWriter;
+import tester.Tester;
+
+/**
+ * Plans every problem with several seeds and reports how long it took and
+ * what was found, as a gate for changes of the planner. Each run records the
+ * wall time, the samples drawn, the sizes of both trees, the number of
+ * states and the cost of the path, and whether the path passes all the tests
+ * of the tester. A run which doesn't finish within the timeout is cancelled
+ * and counted with the timeout as its time.
+ *
+ * The runs are written to report.csv as they finish, and the percentiles of
+ * each problem to report.json. Given the CSV of an earlier run as a baseline,
+ * every run is compared with the baseline run of the same problem and seed.
+ * The search of a seed is the same on every machine, so only its counts
+ * decide: a problem regresses when a path of the baseline became invalid, or
+ * when the median ratio of the samples, the tree states or the cost of its
+ * seeds grew by more than the tolerance. The times are printed next to the
+ * baseline, but only decide with --gate-time, for a baseline recorded on the
+ * same machine; then a problem also regresses when a seed timed out or its
+ * median time grew by more than the tolerance, as long as it is above
+ * MIN_COMPARED_MS. The exit status is 1 if any path is invalid or any
+ * problem regresses.
+ *
+ * Usage: PlanningBenchmark [-k seeds] [--seed first-seed] [--timeout seconds]
+ *            [--swept] [--lazy] [-o report-prefix] [--baseline report.csv]
+ *            [--tolerance ratio] [--gate-time] [problem-file ...]
+ * Without problem files, all problems of the testcases directory are run.
+ */
+public class PlanningBenchmark {
+    private static final int DEFAULT_SEEDS = 5;
+    private static final long DEFAULT_SEED = 42;
+    private static final double DEFAULT_TIMEOUT = 60;
+    private static final double DEFAULT_TOLERANCE = 1.25;
+    private static final String DEFAULT_REPORT = "report";
+    /** medians of both runs below this are not compared */
+    private static final double MIN_COMPARED_MS = 100;
+    private static final String HEADER =
+            "problem,seed,status,wallMs,samples,initTree,goalTree,states,cost,failedTests";
+
+    private static final String VALID = "valid";
+    private static final String INVALID = "invalid";
+    private static final String TIMEOUT = "timeout";
+    private static final String ERROR = "error";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int seeds = DEFAULT_SEEDS;
+        long firstSeed = DEFAULT_SEED;
+        double timeout = DEFAULT_TIMEOUT;
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean swept = false;
+        boolean lazy = false;
+        boolean gateTime = false;
+        String report = DEFAULT_REPORT;
+        String baselineFile = null;
+        List<String> problems = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-k") && i + 1 < args.length) {
+                seeds = Integer.valueOf(args[++i]);
+            } else if (arg.equals("--seed") && i + 1 < args.length) {
+                firstSeed = Long.valueOf(args[++i]);
+            } else if (arg.equals("--timeout") && i + 1 < args.length) {
+                timeout = Double.valueOf(args[++i]);
+            } else if (arg.equals("--tolerance") && i + 1 < args.length) {
+                tolerance = Double.valueOf(args[++i]);
+            } else if (arg.equals("-o") && i + 1 < args.length) {
+                report = args[++i];
+            } else if (arg.equals("--baseline") && i + 1 < args.length) {
+                baselineFile = args[++i];
+            } else if (arg.equals("--swept")) {
+                swept = true;
+            } else if (arg.equals("--lazy")) {
+                lazy = true;
+            } else if (arg.equals("--gate-time")) {
+                gateTime = true;
+            } else {
+                problems.add(arg);
+            }
+        }
+        if (problems.isEmpty()) {
+            File[] files = new File("testcases").listFiles();
+            Arrays.sort(files);
+            for (File file : files) {
+                if (file.getName().endsWith(".txt")) {
+                    problems.add(file.getPath());
+                }
+            }
+        }
+        // read the baseline first, it may be overwritten by the report
+        List<Run> baseline = baselineFile == null? null : readRuns(baselineFile);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Run> runs = new ArrayList<Run>();
+        PrintWriter csv = new PrintWriter(report + ".csv");
+        try {
+            csv.println(HEADER);
+            // the first runs would otherwise include compiling the planner
+            ProblemSpec warmUp = new ProblemSpec();
+            warmUp.loadProblem(problems.get(0));
+            run(executor, problems.get(0), warmUp, firstSeed - 1, timeout, swept, lazy);
+            for (String problem : problems) {
+                ProblemSpec ps = new ProblemSpec();
+                ps.loadProblem(problem);
+                for (int k = 0; k < seeds; k++) {
+                    Run run = run(executor, problem, ps, firstSeed + k, timeout, swept, lazy);
+                    runs.add(run);
+                    csv.println(run.toCsv());
+                    csv.flush();
+                    System.err.println(String.format(Locale.ROOT,
+                            "%s seed %d: %s, %.0f ms, %d states, cost %.4f",
+                            problem, run.seed, run.status, run.wallMs, run.states, run.cost));
+                }
+            }
+        } finally {
+            csv.close();
+            executor.shutdownNow();
+        }
+
+        Map<String, Summary> summaries = summarise(runs);
+        Map<String, Comparison> comparisons = baseline == null? null
+                : compare(summaries, runs, baseline, tolerance, gateTime);
+        PrintWriter json = new PrintWriter(report + ".json");
+        json.print(toJson(summaries, comparisons));
+        json.close();
+
+        int failures = 0;
+        for (Run run : runs) {
+            if (run.status.equals(INVALID) || run.status.equals(ERROR)) {
+                failures++;
+            }
+        }
+        if (comparisons != null) {
+            failures += printComparisons(comparisons, gateTime);
+        }
+        System.exit(failures > 0? 1 : 0);
+    }
+
+    /*
+     * plan a problem once, cancelling the search after the timeout, and
+     * check the path as the tester would check its solution file
+     */
+    private static Run run(ExecutorService executor, String problem, ProblemSpec ps,
+            long seed, double timeout, boolean swept, boolean lazy) throws InterruptedException {
+        Run run = new Run(problem, seed);
+        Planner planner = new Planner(ps, seed);
+        planner.setSweptEdges(swept);
+        planner.setLazyChecks(lazy);
+        long start = System.nanoTime();
+        Future<List<ASVConfig>> result = executor.submit(planner);
+        List<ASVConfig> path = null;
+        try {
+            path = result.get((long) (timeout * 1e9), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            planner.cancel();
+            run.status = TIMEOUT;
+        } catch (ExecutionException e) {
+            run.status = ERROR;
+            run.failed = e.getCause().toString();
+        }
+        if (path == null && run.status == null) {
+            run.status = ERROR;
+        }
+        run.wallMs = (System.nanoTime() - start) / 1e6;
+        if (run.status != null) {
+            // wait for a cancelled search to stop
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // already recorded
+            }
+        }
+        run.samples = planner.getSamples();
+        int[] treeSizes = planner.getTreeSizes();
+        run.initTree = treeSizes[0];
+        run.goalTree = treeSizes[1];
+        if (path != null) {
+            run.states = path.size();
+            validate(run, ps, path);
+        }
+        return run;
+    }
+
+    private static void validate(Run run, ProblemSpec ps, List<ASVConfig> path) {
+        File solution = null;
+        try {
+            ProblemSpec copy = ps.copyProblem();
+            copy.setPath(path);
+            run.cost = copy.getSolutionCost();
+            solution = File.createTempFile("solution", ".txt");
+            new SolutionWriter(solution.getPath()).write(path, run.cost);
+            Tester tester = new Tester();
+            tester.load(run.problem, solution.getPath());
+            List<String> failed = tester.getFailedTests();
+            run.status = failed.isEmpty()? VALID : INVALID;
+            run.failed = String.join(" ", failed);
+        } catch (IOException e) {
+            run.status = ERROR;
+            run.failed = e.toString();
+        } finally {
+            if (solution != null) {
+                solution.delete();
+            }
+        }
+    }
+
+    private static List<Run> readRuns(String file) throws IOException {
+        List<Run> runs = new ArrayList<Run>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line = reader.readLine();
+            if (!HEADER.equals(line)) {
+                throw new IOException(file + " is not a report of PlanningBenchmark");
+            }
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    runs.add(Run.parse(line));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return runs;
+    }
+
+    private static Map<String, Summary> summarise(List<Run> runs) {
+        Map<String, List<Run>> byProblem = new LinkedHashMap<String, List<Run>>();
+        for (Run run : runs) {
+            if (!byProblem.containsKey(run.problem)) {
+                byProblem.put(run.problem, new ArrayList<Run>());
+            }
+            byProblem.get(run.problem).add(run);
+        }
+        Map<String, Summary> summaries = new LinkedHashMap<String, Summary>();
+        for (Map.Entry<String, List<Run>> entry : byProblem.entrySet()) {
+            summaries.put(entry.getKey(), new Summary(entry.getValue()));
+        }
+        return summaries;
+    }
+
+    /*
+     * compare the runs of every problem with the baseline runs of the same seeds
+     */
+    private static Map<String, Comparison> compare(Map<String, Summary> summaries,
+            List<Run> runs, List<Run> baseline, double tolerance, boolean gateTime) {
+        Map<String, Run> baseRuns = new LinkedHashMap<String, Run>();
+        for (Run run : baseline) {
+            baseRuns.put(run.problem + "," + run.seed, run);
+        }
+        Map<String, Summary> baseSummaries = summarise(baseline);
+        Map<String, Comparison> comparisons = new LinkedHashMap<String, Comparison>();
+        for (Map.Entry<String, Summary> entry : summaries.entrySet()) {
+            String problem = entry.getKey();
+            if (!baseSummaries.containsKey(problem)) {
+                comparisons.put(problem, null);
+                continue;
+            }
+            Comparison comparison = new Comparison(entry.getValue(), baseSummaries.get(problem));
+            for (Run run : runs) {
+                Run base = baseRuns.get(run.problem + "," + run.seed);
+                if (run.problem.equals(problem) && base != null) {
+                    comparison.add(run, base);
+                }
+            }
+            comparison.judge(tolerance, gateTime);
+            comparisons.put(problem, comparison);
+        }
+        return comparisons;
+    }
+
+    /*
+     * print the problems next to their baseline and count the regressions
+     */
+    private static int printComparisons(Map<String, Comparison> comparisons, boolean gateTime) {
+        System.out.println(String.format("%-24s %7s %7s %7s %7s %7s %9s %9s %7s  %s",
+                "problem", "seeds", "valid", "samples", "trees", "cost",
+                "base p50", "p50", "time", ""));
+        int regressions = 0;
+        double logRatios = 0;
+        int timed = 0;
+        for (Map.Entry<String, Comparison> entry : comparisons.entrySet()) {
+            Comparison c = entry.getValue();
+            if (c == null) {
+                System.out.println(String.format("%-24s not in baseline", entry.getKey()));
+                continue;
+            }
+            if (c.verdict.startsWith("REGRESSION")) {
+                regressions++;
+            }
+            if (Math.max(c.now.wallP50, c.base.wallP50) >= MIN_COMPARED_MS) {
+                logRatios += Math.log(c.timeRatio);
+                timed++;
+            }
+            System.out.println(String.format(Locale.ROOT,
+                    "%-24s %7d %3d/%-3d %7.2f %7.2f %7.2f %9.0f %9.0f %7.2f  %s",
+                    entry.getKey(), c.seeds, c.now.valid, c.base.valid, c.samplesRatio,
+                    c.treeRatio, c.costRatio, c.base.wallP50, c.now.wallP50, c.timeRatio,
+                    c.verdict));
+        }
+        if (timed > 0) {
+            System.out.println(String.format(Locale.ROOT,
+                    "geometric mean of the median time ratios over %d problems: %.3f%s",
+                    timed, Math.exp(logRatios / timed), gateTime? "" : " (not gated)"));
+        }
+        System.out.println(regressions + " regression(s)");
+        return regressions;
+    }
+
+    private static String toJson(Map<String, Summary> summaries,
+            Map<String, Comparison> comparisons) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"problems\": [\n");
+        int i = 0;
+        for (Map.Entry<String, Summary> entry : summaries.entrySet()) {
+            Summary s = entry.getValue();
+            json.append(format("    {\"problem\": \"%s\", \"runs\": %d, \"valid\": %d, \"timeouts\": %d",
+                    entry.getKey().replace("\\", "\\\\"), s.runs, s.valid, s.timeouts));
+            json.append(format(", \"wallMs\": {\"p50\": %.1f, \"p90\": %.1f, \"max\": %.1f}",
+                    s.wallP50, s.wallP90, s.wallMax));
+            json.append(format(", \"samplesP50\": %s, \"statesP50\": %s, \"costP50\": %s",
+                    number(s.samplesP50), number(s.statesP50), number(s.costP50)));
+            Comparison c = comparisons == null? null : comparisons.get(entry.getKey());
+            if (c != null) {
+                json.append(format(", \"baseline\": {\"seeds\": %d, \"valid\": %d, \"runs\": %d, "
+                        + "\"samplesRatio\": %s, \"treeRatio\": %s, \"costRatio\": %s, "
+                        + "\"wallP50\": %.1f, \"wallP90\": %.1f, \"timeRatio\": %.3f, \"verdict\": \"%s\"}",
+                        c.seeds, c.base.valid, c.base.runs, number(c.samplesRatio),
+                        number(c.treeRatio), number(c.costRatio), c.base.wallP50,
+                        c.base.wallP90, c.timeRatio, c.verdict));
+            }
+            json.append(++i < summaries.size()? "},\n" : "}\n");
+        }
+        json.append("  ]\n}\n");
+        return json.toString();
+    }
+
+    private static String format(String format, Object... args) {
+        // JSON numbers always use a decimal point
+        return String.format(Locale.ROOT, format, args);
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value)? "null" : format("%.4f", value);
+    }
+
+    /*
+     * the nearest-rank percentile of sorted values, NaN if there are none
+     */
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /*
+     * the result of planning a problem with one seed
+     */
+    private static class Run {
+        private String problem;
+        private long seed;
+        private String status;
+        private double wallMs;
+        private long samples;
+        private int initTree;
+        private int goalTree;
+        private int states;
+        private double cost = Double.NaN;
+        /** the failed tests of an invalid path, or the error */
+        private String failed = "";
+
+        public Run(String problem, long seed) {
+            this.problem = problem;
+            this.seed = seed;
+        }
+
+        public String toCsv() {
+            return format("%s,%d,%s,%.3f,%d,%d,%d,%d,%s,%s", problem, seed, status, wallMs,
+                    samples, initTree, goalTree, states, Double.isNaN(cost)? "" : format("%.6f", cost),
+                    failed.replace(',', ';'));
+        }
+
+        public static Run parse(String line) {
+            String[] fields = line.split(",", -1);
+            Run run = new Run(fields[0], Long.valueOf(fields[1]));
+            run.status = fields[2];
+            run.wallMs = Double.valueOf(fields[3]);
+            run.samples = Long.valueOf(fields[4]);
+            run.initTree = Integer.valueOf(fields[5]);
+            run.goalTree = Integer.valueOf(fields[6]);
+            run.states = Integer.valueOf(fields[7]);
+            run.cost = fields[8].isEmpty()? Double.NaN : Double.valueOf(fields[8]);
+            run.failed = fields[9];
+            return run;
+        }
+    }
+
+    /*
+     * the runs of one problem against the baseline runs of the same seeds.
+     * The ratios are the medians of the ratios of the seeds valid in both
+     */
+    private static class Comparison {
+        private Summary now;
+        private Summary base;
+        /** the number of seeds in both */
+        private int seeds;
+        private int invalidated;
+        private int timedOut;
+        /** the number of valid seeds whose search differs from the baseline */
+        private int changed;
+        private List<Double> samples = new ArrayList<Double>();
+        private List<Double> trees = new ArrayList<Double>();
+        private List<Double> costs = new ArrayList<Double>();
+        private double samplesRatio;
+        private double treeRatio;
+        private double costRatio;
+        private double timeRatio;
+        private String verdict = "";
+
+        public Comparison(Summary now, Summary base) {
+            this.now = now;
+            this.base = base;
+            timeRatio = now.wallP50 / base.wallP50;
+        }
+
+        public void add(Run run, Run baseRun) {
+            seeds++;
+            if (!baseRun.status.equals(VALID)) {
+                return;
+            }
+            if (run.status.equals(TIMEOUT)) {
+                // may only be a slower machine
+                timedOut++;
+            } else if (!run.status.equals(VALID)) {
+                invalidated++;
+            } else {
+                samples.add((double) Math.max(1, run.samples) / Math.max(1, baseRun.samples));
+                trees.add((double) (run.initTree + run.goalTree)
+                        / Math.max(1, baseRun.initTree + baseRun.goalTree));
+                costs.add(run.cost / baseRun.cost);
+                // the report keeps six decimals of the cost
+                if (run.samples != baseRun.samples || run.initTree != baseRun.initTree
+                        || run.goalTree != baseRun.goalTree || run.states != baseRun.states
+                        || Math.abs(run.cost - baseRun.cost) > 1e-5) {
+                    changed++;
+                }
+            }
+        }
+
+        public void judge(double tolerance, boolean gateTime) {
+            samplesRatio = median(samples);
+            treeRatio = median(trees);
+            costRatio = median(costs);
+            if (invalidated > 0) {
+                verdict = "REGRESSION: invalid paths";
+            } else if (samplesRatio > tolerance) {
+                verdict = "REGRESSION: more samples";
+            } else if (treeRatio > tolerance) {
+                verdict = "REGRESSION: larger trees";
+            } else if (costRatio > tolerance) {
+                verdict = "REGRESSION: costlier paths";
+            } else if (gateTime && timedOut > 0) {
+                verdict = "REGRESSION: timed out";
+            } else if (gateTime && timeRatio > tolerance
+                    && Math.max(now.wallP50, base.wallP50) >= MIN_COMPARED_MS) {
+                verdict = "REGRESSION: slower";
+            } else if (timedOut > 0) {
+                verdict = "timed out, not gated";
+            } else if (changed > 0) {
+                verdict = changed + " seed(s) changed";
+            }
+        }
+
+        private static double median(List<Double> ratios) {
+            double[] sorted = new double[ratios.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = ratios.get(i);
+            }
+            Arrays.sort(sorted);
+            return percentile(sorted, 0.5);
+        }
+    }
+
+    /*
+     * the percentiles of the runs of one problem. The times include the runs
+     * that timed out, the other values only the valid runs
+     */
+    private static class Summary {
+        private int runs;
+        private int valid;
+        private int timeouts;
+        private double wallP50;
+        private double wallP90;
+        private double wallMax;
+        private double samplesP50;
+        private double statesP50;
+        private double costP50;
+
+        public Summary(List<Run> problemRuns) {
+            runs = problemRuns.size();
+            double[] wall = new double[runs];
+            List<Run> validRuns = new ArrayList<Run>();
+            for (int i = 0; i < runs; i++) {
+                Run run = problemRuns.get(i);
+                wall[i] = run.wallMs;
+                if (run.status.equals(VALID)) {
+                    validRuns.add(run);
+                } else if (run.status.equals(TIMEOUT)) {
+                    timeouts++;
+                }
+            }
+            valid = validRuns.size();
+            double[] samples = new double[valid];
+            double[] states = new double[valid];
+            double[] costs = new double[valid];
+            for (int i = 0; i < valid; i++) {
+                samples[i] = validRuns.get(i).samples;
+                states[i] = validRuns.get(i).states;
+                costs[i] = validRuns.get(i).cost;
+            }
+            Arrays.sort(wall);
+            Arrays.sort(samples);
+            Arrays.sort(states);
+            Arrays.sort(costs);
+            wallP50 = percentile(wall, 0.5);
+            wallP90 = percentile(wall, 0.9);
+            wallMax = wall[runs - 1];
+            samplesP50 = percentile(samples, 0.5);
+            statesP50 = percentile(states, 0.5);
+            costP50 = percentile(costs, 0.5);
+        }
+    }
+}
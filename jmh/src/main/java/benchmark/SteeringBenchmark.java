@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.io.IOException;
+
+import rrt.Config;
+import rrt.Planner;
+import rrt.ProblemSpec;
+
+/**
+ * Measures the throughput of tree extensions (findNext2) with the step size
+ * limited by repeated cutting and workspace conversion, and with the step
+ * computed directly from a bound of the workspace movement. Both planners
+ * extend between the same pairs of random states.
+ * 
+ * Usage: SteeringBenchmark [problem-file ...]
+ */
+public class SteeringBenchmark {
+    private static final String[] DEFAULT_PROBLEMS = {"testcases/3ASV.txt", 
+        "testcases/7ASV.txt", "testcases/15-4.txt", "testcases/20-4a.txt"};
+    private static final int EXTENSIONS = 300;
+    private static final int WARM_UP = 50;
+    
+    public static void main(String[] args) throws IOException {
+        String[] problems = args.length > 0? args : DEFAULT_PROBLEMS;
+        System.out.println(String.format("%-22s %-10s %12s %12s %12s", 
+                "problem", "steering", "ext/s", "steps/ext", "us/step"));
+        for (String problem: problems) {
+            ProblemSpec ps = new ProblemSpec();
+            ps.loadProblem(problem);
+            Planner generator = new Planner(ps, 42);
+            Config[] from = new Config[EXTENSIONS + WARM_UP];
+            Config[] to = new Config[EXTENSIONS + WARM_UP];
+            for (int i = 0; i < from.length; i++) {
+                from[i] = generator.sample();
+                to[i] = generator.sample();
+            }
+            run(problem, ps, false, from, to);
+            run(problem, ps, true, from, to);
+        }
+    }
+    
+    private static void run(String problem, ProblemSpec ps, boolean analytic, 
+            Config[] from, Config[] to) {
+        Planner planner = new Planner(ps, 42);
+        planner.setAnalyticSteering(analytic);
+        for (int i = 0; i < WARM_UP; i++) {
+            planner.extend(from[i], to[i]);
+        }
+        long steps = 0;
+        long start = System.nanoTime();
+        for (int i = WARM_UP; i < from.length; i++) {
+            Config reached = planner.extend(from[i], to[i]);
+            for (Config c = reached; c != null && c != from[i]; c = c.getPredecessor()) {
+                steps++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-22s %-10s %12.1f %12.1f %12.2f", 
+                problem, analytic? "analytic" : "iterative", EXTENSIONS / seconds, 
+                (double) steps / EXTENSIONS, seconds * 1e6 / Math.max(1, steps)));
+    }
+}
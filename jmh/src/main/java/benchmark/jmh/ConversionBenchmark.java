@@ -0,0 +1,69 @@
+package benchmark.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rrt.ASVConfig;
+import rrt.Planner;
+import rrt.ProblemSpec;
+
+/**
+ * The conversions of a state between the workspace and c-space, done for
+ * every state checked by the planner.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    private static final int STATES = 256;
+
+    @Param({"3", "7", "15"})
+    int asvCount;
+
+    @Param({"2", "7"})
+    int obstacles;
+
+    private Planner planner;
+    private double[][] coords;
+    private ASVConfig[] states;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        ProblemSpec ps = Problems.load(asvCount, obstacles);
+        planner = new Planner(ps, Problems.SEED);
+        coords = new double[STATES][];
+        states = new ASVConfig[STATES];
+        for (int i = 0; i < STATES; i++) {
+            coords[i] = planner.sample().getCoords();
+            states[i] = new ASVConfig(Planner.cfgToArray(coords[i]));
+        }
+    }
+
+    @Benchmark
+    public double[] cfgToArray() {
+        next = (next + 1) & (STATES - 1);
+        return Planner.cfgToArray(coords[next]);
+    }
+
+    @Benchmark
+    public double[] asvConfigToCfg() {
+        next = (next + 1) & (STATES - 1);
+        return planner.toCoords(states[next]);
+    }
+}
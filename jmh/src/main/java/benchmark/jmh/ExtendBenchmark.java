@@ -0,0 +1,63 @@
+package benchmark.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rrt.Config;
+import rrt.Planner;
+import rrt.ProblemSpec;
+
+/**
+ * A tree extension (findNext2) between two sampled states, which steps
+ * towards the target until it is reached or blocked.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtendBenchmark {
+    private static final int PAIRS = 128;
+
+    @Param({"3", "7", "15"})
+    int asvCount;
+
+    @Param({"2", "7"})
+    int obstacles;
+
+    private Planner planner;
+    private Config[] from;
+    private Config[] to;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        ProblemSpec ps = Problems.load(asvCount, obstacles);
+        planner = new Planner(ps, Problems.SEED);
+        from = new Config[PAIRS];
+        to = new Config[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = planner.sample();
+            to[i] = planner.sample();
+        }
+    }
+
+    @Benchmark
+    public Config findNext2() {
+        next = (next + 1) & (PAIRS - 1);
+        return planner.extend(from[next], to[next]);
+    }
+}
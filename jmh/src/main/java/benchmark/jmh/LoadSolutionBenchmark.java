@@ -0,0 +1,97 @@
+package benchmark.jmh;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rrt.ASVConfig;
+import rrt.BinarySolution;
+import rrt.ProblemSpec;
+
+/**
+ * Loading a solution of the problem from a text or binary file. The path
+ * moves every ASV in a straight line from the initial to the goal state, as
+ * the parsing doesn't depend on the path being valid, and planning one for
+ * every problem would make the setup take minutes. A binary file is mapped
+ * and its states are decoded when they are read, which isn't measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadSolutionBenchmark {
+    @Param({"3", "7", "15"})
+    int asvCount;
+
+    @Param({"2", "7"})
+    int obstacles;
+
+    @Param({"10000"})
+    int states;
+
+    @Param({"text", "binary"})
+    String format;
+
+    private ProblemSpec ps;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        ps = Problems.load(asvCount, obstacles);
+        double[] init = toArray(ps.getInitialState());
+        double[] goal = toArray(ps.getGoalState());
+        List<ASVConfig> path = new ArrayList<ASVConfig>();
+        for (int i = 0; i < states; i++) {
+            double t = (double) i / (states - 1);
+            double[] coords = new double[init.length];
+            for (int j = 0; j < coords.length; j++) {
+                coords[j] = init[j] + t * (goal[j] - init[j]);
+            }
+            path.add(new ASVConfig(coords));
+        }
+        ps.setPath(path);
+        file = File.createTempFile("solution", format.equals("binary")? ".bin" : ".txt");
+        if (format.equals("binary")) {
+            BinarySolution.write(file.getPath(), path, ps.getSolutionCost());
+        } else {
+            ps.saveSolution(file.getPath());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    private static double[] toArray(ASVConfig state) {
+        double[] coords = new double[2 * state.getASVCount()];
+        for (int i = 0; i < state.getASVCount(); i++) {
+            coords[2*i] = state.getPosition(i).getX();
+            coords[2*i + 1] = state.getPosition(i).getY();
+        }
+        return coords;
+    }
+
+    @Benchmark
+    public int loadSolution() throws IOException {
+        ps.loadSolution(file.getPath());
+        return ps.getPathView().size();
+    }
+}
@@ -0,0 +1,84 @@
+package benchmark.jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rrt.Config;
+import rrt.ConfigTree;
+import rrt.KDTree;
+import rrt.LinearScan;
+import rrt.NearestNeighbour;
+
+/**
+ * The nearest neighbour query of findNearest over a tree of random c-space
+ * states. Like the planner, every other query punishes states with a
+ * different first angle. The query doesn't look at the obstacles, and
+ * drawing valid samples of the larger problems takes tens of milliseconds
+ * each, so the states are uniform over the c-space. The index is the
+ * KDTree of the planner or the LinearScan it replaced, to compare their
+ * query times as the tree grows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearestBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"3", "7", "15"})
+    int asvCount;
+
+    @Param({"1000", "10000", "100000"})
+    int treeSize;
+
+    @Param({"kdtree", "scan"})
+    String index;
+
+    private NearestNeighbour search;
+    private double[][] queries;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(Problems.SEED);
+        ConfigTree tree = new ConfigTree(asvCount + 1);
+        search = index.equals("scan")? new LinearScan(tree) : new KDTree(tree);
+        for (int i = 0; i < treeSize; i++) {
+            search.add(tree.add(new Config(randomCoords(random))));
+        }
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomCoords(random);
+        }
+    }
+
+    private double[] randomCoords(SplittableRandom random) {
+        double[] coords = new double[asvCount + 1];
+        coords[0] = random.nextDouble();
+        coords[1] = random.nextDouble();
+        for (int i = 2; i < coords.length; i++) {
+            coords[i] = random.nextDouble(-Math.PI, Math.PI);
+        }
+        return coords;
+    }
+
+    @Benchmark
+    public int findNearest() {
+        next = (next + 1) & (QUERIES - 1);
+        return search.nearest(queries[next], next%2 == 1);
+    }
+}
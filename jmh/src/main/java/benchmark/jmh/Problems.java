@@ -0,0 +1,48 @@
+package benchmark.jmh;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import rrt.ProblemSpec;
+
+/**
+ * Finds the problems of the benchmarks in testcases/ by their number of ASVs
+ * and obstacles, so that the benchmarks can be parameterised by both. The
+ * directory is testcases/ under the working directory, or the one given by
+ * the system property "testcases".
+ */
+final class Problems {
+    /** the seed of all the random states of the benchmarks */
+    static final long SEED = 42;
+
+    private Problems() {
+    }
+
+    /**
+     * @return the first problem, by file name, with the given number of ASVs
+     * and obstacles
+     */
+    static ProblemSpec load(int asvCount, int obstacles) throws IOException {
+        File dir = new File(System.getProperty("testcases", "testcases"));
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new FileNotFoundException(dir.getAbsolutePath() 
+                    + " not found, run from the project root or set -Dtestcases=dir");
+        }
+        Arrays.sort(files);
+        for (File file: files) {
+            if (!file.getName().endsWith(".txt")) {
+                continue;
+            }
+            ProblemSpec ps = new ProblemSpec();
+            ps.loadProblem(file.getPath());
+            if (ps.getASVCount() == asvCount && ps.getObstacles().size() == obstacles) {
+                return ps;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "no problem in %s has %d ASVs and %d obstacles", dir, asvCount, obstacles));
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark.jmh;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rrt.ASVConfig;
+import rrt.Planner;
+import rrt.ProblemSpec;
+import rrt.Test;
+
+/**
+ * The checks of a single state: convexity, area and collision. The states
+ * are drawn like the samples of the planner, so they are convex and have
+ * enough area, and some of them collide.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateCheckBenchmark {
+    private static final int STATES = 256;
+
+    @Param({"3", "7", "15"})
+    int asvCount;
+
+    @Param({"2", "7"})
+    int obstacles;
+
+    private Test tester;
+    private ASVConfig[] states;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        ProblemSpec ps = Problems.load(asvCount, obstacles);
+        tester = new Test(ps);
+        Planner planner = new Planner(ps, Problems.SEED);
+        states = new ASVConfig[STATES];
+        for (int i = 0; i < STATES; i++) {
+            states[i] = new ASVConfig(Planner.cfgToArray(planner.sample().getCoords()));
+        }
+    }
+
+    private ASVConfig nextState() {
+        next = (next + 1) & (STATES - 1);
+        return states[next];
+    }
+
+    @Benchmark
+    public boolean isConvex() {
+        return tester.isConvex(nextState());
+    }
+
+    @Benchmark
+    public boolean hasEnoughArea() {
+        return tester.hasEnoughArea(nextState());
+    }
+
+    @Benchmark
+    public boolean hasCollision() {
+        return tester.hasCollision(nextState());
+    }
+}
@@ -1,9 +1,9 @@
 package rrt;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
-import java.util.Scanner;
 import java.awt.geom.Point2D;
 
 /**
@@ -40,12 +40,36 @@ public class ASVConfig {
 	 *            the String containing the coordinates.
 	 */
 	public ASVConfig(int asvCount, String str) throws InputMismatchException {
-		Scanner s = new Scanner(str);
+		try {
+			readPositions(asvCount, new TextTokenizer(str));
+		} catch (IOException e) {
+			// reading from a String can't fail
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Constructs an ASVConfig from the x- and y-coordinates on the current
+	 * line of a tokenizer.
+	 *
+	 * @param asvCount
+	 *            the number of ASVs to read.
+	 * @param tokens
+	 *            the tokenizer positioned on the coordinates.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	ASVConfig(int asvCount, TextTokenizer tokens) throws IOException {
+		readPositions(asvCount, tokens);
+	}
+
+	private void readPositions(int asvCount, TextTokenizer tokens)
+			throws IOException {
 		for (int i = 0; i < asvCount; i++) {
-			asvPositions
-					.add(new Point2D.Double(s.nextDouble(), s.nextDouble()));
+			double x = tokens.nextDouble();
+			double y = tokens.nextDouble();
+			asvPositions.add(new Point2D.Double(x, y));
 		}
-		s.close();
 	}
 
 	/**
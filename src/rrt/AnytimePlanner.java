@@ -0,0 +1,321 @@
+package rrt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * an anytime planner which keeps shortening its path until a deadline, by
+ * RRT* over the c-space states.
+ *
+ * The first path is found by a Planner with swept edges. Its states seed a
+ * single tree rooted at the initial state, which is then grown towards
+ * random samples: each new state is attached to the nearby state giving it
+ * the cheapest path from the root, and nearby states are rewired through it
+ * when that is cheaper for them. The goal state is part of the tree, so its
+ * cost falls as the tree improves. Once a path is known, samples which can't
+ * lie on a cheaper path are skipped (informed sampling).
+ *
+ * The cost of a motion is the total distance of the ASVs between its end
+ * states, as for ASVConfig.totalDistance, which is a lower bound of the cost
+ * of the densified motion and close to it for the short edges of the tree.
+ */
+public class AnytimePlanner {
+    /** the longest motion added to the tree, as a bound of the workspace movement */
+    private static final double EDGE_STEP = 0.05;
+    /** the largest radius of the states considered for rewiring */
+    private static final double NEAR_RADIUS = 0.1;
+    private static final double GAMMA = 1.0;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** provides the samples and checks, and the first path */
+    private final Planner planner;
+
+    private ConfigTree tree;
+    private NearestNeighbour index;
+    /** the cost of the path from the root to each state */
+    private double[] cost = new double[INITIAL_CAPACITY];
+    /** the children of each state as linked lists */
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    private int goalId;
+    /** the workspace positions of the initial and goal states */
+    private double[] initASVs;
+    private double[] goalASVs;
+
+    /** (seconds since the start, cost) at each improvement of the path */
+    private List<double[]> curve = new ArrayList<double[]>();
+    private long startTime;
+    private int samples = 0;
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     * @param seed: the seed of the random samples
+     */
+    public AnytimePlanner(ProblemSpec problem, long seed) {
+        planner = new Planner(problem, seed);
+        planner.setSweptEdges(true);
+    }
+
+    /**
+     * search a path and shorten it until the deadline
+     * @param deadline: the deadline in System.nanoTime() units
+     * @return the states of the cheapest path found, or null if cancelled or
+     * no path was found by the deadline
+     */
+    public List<ASVConfig> plan(long deadline) {
+        startTime = System.nanoTime();
+        if (cancelled) {
+            return null;
+        }
+        planner.setDeadline(deadline);
+        if (planner.plan() == null) {
+            return null;
+        }
+        initTree(planner.getPathStates());
+
+        while (System.nanoTime() < deadline && !cancelled) {
+            double best = cost[goalId];
+            samples++;
+            Config sample = planner.sample();
+            double[] asv = Planner.cfgToArray(sample.coords);
+            if (getDistance(initASVs, asv) + getDistance(asv, goalASVs) >= best) {
+                // only a more expensive path can pass through the sample
+                continue;
+            }
+            extend(sample);
+            if (cost[goalId] < best) {
+                record();
+            }
+        }
+        return getPath();
+    }
+
+    /**
+     * stop the search, plan() then returns null unless a path was found. May be
+     * called from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+        planner.cancel();
+    }
+
+    /**
+     * the cost of the path at each improvement, as pairs of the seconds since
+     * the start of plan() and the cost
+     */
+    public List<double[]> getCurve() {
+        return curve;
+    }
+
+    /**
+     * the cost of the current path through the tree states
+     */
+    public double getCost() {
+        return cost[goalId];
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * the metrics of the planner which finds the first path and checks the
+     * states and motions of the tree
+     */
+    public PlannerMetrics getMetrics() {
+        return planner.getMetrics();
+    }
+
+    public int getTreeSize() {
+        return tree == null? 0 : tree.size();
+    }
+
+    /*
+     * start the tree with the states of the first path as a single branch
+     */
+    private void initTree(List<double[]> states) {
+        int dimensions = states.get(0).length;
+        tree = new ConfigTree(dimensions);
+        index = new KDTree(tree);
+        initASVs = Planner.cfgToArray(states.get(0));
+        goalASVs = Planner.cfgToArray(states.get(states.size() - 1));
+        int parent = add(states.get(0), -1, 0);
+        for (int i = 1; i < states.size(); i++) {
+            double[] cfg = states.get(i);
+            double[] previous = tree.get(parent).coords;
+            if (Arrays.equals(cfg, previous)) {
+                // the trees of the planner meet at copies of the same state
+                continue;
+            }
+            parent = add(cfg, parent, cost[parent] + Planner.getCost(previous, cfg));
+        }
+        goalId = parent;
+        record();
+    }
+
+    /*
+     * one RRT* step: steer from the nearest state towards the sample, attach
+     * the new state to its cheapest valid neighbour and rewire the others
+     */
+    private void extend(Config sample) {
+        int nearest = index.nearest(sample.coords, false);
+        double[] from = tree.get(nearest).coords;
+        double bound = Planner.getMoveBound(from, sample.coords);
+        double[] cfg = bound <= EDGE_STEP? sample.coords
+                : Planner.interpolate(from, sample.coords, EDGE_STEP / bound);
+        if (!planner.isValid(new Config(cfg))) {
+            return;
+        }
+        int[] near = findNear(cfg, nearest);
+        double[] edgeCosts = new double[near.length];
+        Integer[] order = new Integer[near.length];
+        for (int i = 0; i < near.length; i++) {
+            edgeCosts[i] = Planner.getCost(tree.get(near[i]).coords, cfg);
+            order[i] = i;
+        }
+        // try the parents in the order of the cost they give, the first valid one wins
+        final double[] totals = new double[near.length];
+        for (int i = 0; i < near.length; i++) {
+            totals[i] = cost[near[i]] + edgeCosts[i];
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Double.compare(totals[a], totals[b]);
+            }
+        });
+        int parentIndex = -1;
+        for (int i : order) {
+            if (planner.isValidEdge(tree.get(near[i]).coords, cfg)) {
+                parentIndex = i;
+                break;
+            }
+        }
+        if (parentIndex < 0) {
+            return;
+        }
+        int id = add(cfg, near[parentIndex], totals[parentIndex]);
+
+        // rewire the neighbours which get cheaper through the new state
+        for (int i = 0; i < near.length; i++) {
+            int other = near[i];
+            double newCost = cost[id] + edgeCosts[i];
+            if (i != parentIndex && other != 0 && newCost < cost[other]
+                    && planner.isValidEdge(cfg, tree.get(other).coords)) {
+                setParent(other, id);
+                updateCosts(other, cost[other] - newCost);
+            }
+        }
+    }
+
+    /*
+     * the states of the same orientation whose motion to cfg is within the
+     * rewiring radius, which shrinks as the tree grows. The nearest state is
+     * always included
+     */
+    private int[] findNear(double[] cfg, int nearest) {
+        int n = tree.size();
+        double radius = Math.min(NEAR_RADIUS,
+                GAMMA * Math.pow(Math.log(n) / n, 1.0 / cfg.length));
+        radius = Math.max(radius, Planner.getMoveBound(tree.get(nearest).coords, cfg));
+        int[] candidates = index.near(cfg, radius);
+        int[] near = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            double[] other = tree.get(id).coords;
+            if (cfg.length > 3 && (other[3] < 0) != (cfg[3] < 0)) {
+                // states of opposite orientations aren't connected by convex states
+                continue;
+            }
+            if (id == nearest || Planner.getMoveBound(other, cfg) <= radius) {
+                near[count++] = id;
+            }
+        }
+        return Arrays.copyOf(near, count);
+    }
+
+    private int add(double[] cfg, int parent, double pathCost) {
+        int id = tree.add(new Config(cfg.clone()));
+        if (id == cost.length) {
+            cost = Arrays.copyOf(cost, 2*id);
+            firstChild = Arrays.copyOf(firstChild, 2*id);
+            nextSibling = Arrays.copyOf(nextSibling, 2*id);
+        }
+        cost[id] = pathCost;
+        firstChild[id] = -1;
+        nextSibling[id] = -1;
+        index.add(id);
+        if (parent >= 0) {
+            setParent(id, parent);
+        }
+        return id;
+    }
+
+    /*
+     * move a state to the children of another parent
+     */
+    private void setParent(int id, int parent) {
+        int old = tree.getParent(id);
+        if (old >= 0) {
+            if (firstChild[old] == id) {
+                firstChild[old] = nextSibling[id];
+            } else {
+                int c = firstChild[old];
+                while (nextSibling[c] != id) {
+                    c = nextSibling[c];
+                }
+                nextSibling[c] = nextSibling[id];
+            }
+        }
+        tree.setParent(id, parent);
+        nextSibling[id] = firstChild[parent];
+        firstChild[parent] = id;
+    }
+
+    /*
+     * lower the cost of a state and all of its descendants
+     */
+    private void updateCosts(int id, double decrease) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = id;
+        while (top > 0) {
+            int node = stack[--top];
+            cost[node] -= decrease;
+            for (int c = firstChild[node]; c >= 0; c = nextSibling[c]) {
+                if (top == stack.length) {
+                    stack = Arrays.copyOf(stack, 2*top);
+                }
+                stack[top++] = c;
+            }
+        }
+    }
+
+    private void record() {
+        curve.add(new double[] {(System.nanoTime() - startTime) / 1e9, cost[goalId]});
+    }
+
+    private List<ASVConfig> getPath() {
+        List<double[]> configs = new ArrayList<double[]>();
+        for (int id = goalId; id >= 0; id = tree.getParent(id)) {
+            configs.add(tree.get(id).coords);
+        }
+        Collections.reverse(configs);
+        return planner.densify(configs);
+    }
+
+    /*
+     * the total distance between the ASV positions of two workspace states
+     */
+    private static double getDistance(double[] asvA, double[] asvB) {
+        double total = 0;
+        for (int i = 0; i < asvA.length; i += 2) {
+            total += Math.hypot(asvA[i] - asvB[i], asvA[i+1] - asvB[i+1]);
+        }
+        return total;
+    }
+}
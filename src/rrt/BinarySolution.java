@@ -0,0 +1,273 @@
+package rrt;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A compact binary alternative to the solution text file. The file starts
+ * with a 32-byte little-endian header:
+ * 
+ * <pre>
+ * bytes 0-3    magic "ASVB"
+ * bytes 4-7    format version (1)
+ * bytes 8-11   the number of ASVs
+ * bytes 12-15  reserved (0)
+ * bytes 16-23  the number of states, i.e. the number of steps plus one
+ * bytes 24-31  the cost of the solution
+ * </pre>
+ * 
+ * followed by the x- and y-coordinates of every ASV of every state, packed
+ * as doubles in the same order as in the text format.
+ * 
+ * Loaded files are memory-mapped; states are decoded only when accessed.
+ */
+public class BinarySolution {
+	/** The first bytes of every binary solution file */
+	private static final byte[] MAGIC = { 'A', 'S', 'V', 'B' };
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	/** The number of ASVs in each state */
+	private int asvCount;
+	/** The number of states */
+	private long stateCount;
+	/** The cost of the solution */
+	private double cost;
+	/** The mapped states; chunk i holds states from i * statesPerChunk */
+	private ByteBuffer[] chunks;
+	private int statesPerChunk;
+
+	private BinarySolution() {
+	}
+
+	/**
+	 * Returns whether the given file starts with the magic bytes of a binary
+	 * solution.
+	 * 
+	 * @param filename
+	 *            the path of the file to test.
+	 * @return whether the file is a binary solution file.
+	 * @throws IOException
+	 *             if the file cannot be read.
+	 */
+	public static boolean isBinary(String filename) throws IOException {
+		DataInputStream input = new DataInputStream(new FileInputStream(
+				filename));
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			input.readFully(magic);
+			return Arrays.equals(magic, MAGIC);
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Memory-maps a binary solution file.
+	 * 
+	 * @param filename
+	 *            the path of the file to load.
+	 * @return the loaded solution.
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid binary
+	 *             solution.
+	 */
+	public static BinarySolution load(String filename) throws IOException {
+		BinarySolution solution = new BinarySolution();
+		FileChannel channel = FileChannel.open(Paths.get(filename),
+				StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("Binary solution header is incomplete.");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			for (int i = 0; i < MAGIC.length; i++) {
+				if (header.get(i) != MAGIC[i]) {
+					throw new IOException("Not a binary solution file.");
+				}
+			}
+			int version = header.getInt(4);
+			if (version != VERSION) {
+				throw new IOException(String.format(
+						"Unsupported binary solution version %d", version));
+			}
+			solution.asvCount = header.getInt(8);
+			solution.stateCount = header.getLong(16);
+			solution.cost = header.getDouble(24);
+
+			int stateSize = solution.asvCount * 2 * 8;
+			if (solution.asvCount <= 0 || solution.stateCount <= 0
+					|| size != HEADER_SIZE + solution.stateCount * stateSize) {
+				throw new IOException(String.format(
+						"Binary solution of %d states of %d ASVs "
+								+ "doesn't match the file size %d",
+						solution.stateCount, solution.asvCount, size));
+			}
+			// a single mapping is limited to 2 GB, so large files are mapped
+			// in chunks of whole states
+			solution.statesPerChunk = Integer.MAX_VALUE / stateSize;
+			int chunkCount = (int) ((solution.stateCount
+					+ solution.statesPerChunk - 1) / solution.statesPerChunk);
+			solution.chunks = new ByteBuffer[chunkCount];
+			for (int i = 0; i < chunkCount; i++) {
+				long first = (long) i * solution.statesPerChunk;
+				long states = Math.min(solution.statesPerChunk,
+						solution.stateCount - first);
+				MappedByteBuffer chunk = channel.map(
+						FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first
+								* stateSize, states * stateSize);
+				solution.chunks[i] = chunk.order(ByteOrder.LITTLE_ENDIAN);
+			}
+		} finally {
+			channel.close();
+		}
+		return solution;
+	}
+
+	/**
+	 * Writes a solution as a binary solution file.
+	 * 
+	 * @param filename
+	 *            the path of the file to write.
+	 * @param path
+	 *            the states of the solution.
+	 * @param cost
+	 *            the cost of the solution.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public static void write(String filename, List<ASVConfig> path,
+			double cost) throws IOException {
+		int asvCount = path.get(0).getASVCount();
+		RandomAccessFile file = new RandomAccessFile(filename, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(
+					ByteOrder.LITTLE_ENDIAN);
+			buffer.put(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(asvCount);
+			buffer.putInt(0);
+			buffer.putLong(path.size());
+			buffer.putDouble(cost);
+			for (ASVConfig cfg : path) {
+				if (buffer.remaining() < asvCount * 2 * 8) {
+					drain(buffer, channel);
+				}
+				for (int i = 0; i < asvCount; i++) {
+					buffer.putDouble(cfg.getPosition(i).getX());
+					buffer.putDouble(cfg.getPosition(i).getY());
+				}
+			}
+			drain(buffer, channel);
+		} finally {
+			file.close();
+		}
+	}
+
+	private static void drain(ByteBuffer buffer, FileChannel channel)
+			throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Returns the number of ASVs in each state.
+	 * 
+	 * @return the number of ASVs in each state.
+	 */
+	public int getASVCount() {
+		return asvCount;
+	}
+
+	/**
+	 * Returns the number of states in the solution.
+	 * 
+	 * @return the number of states in the solution.
+	 */
+	public long getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * Returns the cost recorded in the file.
+	 * 
+	 * @return the cost recorded in the file.
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Copies the coordinates of a state into the given array.
+	 * 
+	 * @param index
+	 *            the index of the state.
+	 * @param xy
+	 *            receives the x- and y-coordinates of the ASVs; must have
+	 *            room for 2 * getASVCount() values.
+	 */
+	public void getCoords(long index, double[] xy) {
+		ByteBuffer chunk = chunks[(int) (index / statesPerChunk)];
+		int offset = (int) (index % statesPerChunk) * asvCount * 2 * 8;
+		for (int i = 0; i < asvCount * 2; i++) {
+			// absolute reads, so states can be read from several threads
+			xy[i] = chunk.getDouble(offset + i * 8);
+		}
+	}
+
+	/**
+	 * Returns a read-only view of the states, decoding each state when it is
+	 * accessed.
+	 * 
+	 * @return the states of the solution.
+	 * @throws IOException
+	 *             if the solution has more states than a list can hold.
+	 */
+	public List<ASVConfig> getStates() throws IOException {
+		if (stateCount > Integer.MAX_VALUE) {
+			throw new IOException(String.format(
+					"Solution of %d states is too long", stateCount));
+		}
+		return new StateList();
+	}
+
+	private class StateList extends AbstractList<ASVConfig> implements
+			RandomAccess {
+		@Override
+		public ASVConfig get(int index) {
+			if (index < 0 || index >= stateCount) {
+				throw new IndexOutOfBoundsException("State " + index);
+			}
+			double[] xy = new double[asvCount * 2];
+			getCoords(index, xy);
+			return new ASVConfig(xy);
+		}
+
+		@Override
+		public int size() {
+			return (int) stateCount;
+		}
+	}
+}
@@ -6,6 +6,7 @@ package rrt;
 public class Config {
     protected double[] coords;   // the coordinates of this configuration in c space
     protected Config predecessor;   // used to trace back to retrieve path
+    protected int id = -1;   // the node id once added to a ConfigTree
     
     public Config(double[] coords){
     	this.coords=coords;
@@ -17,6 +18,14 @@ public class Config {
         this.predecessor = predecessor;
     }
     
+    public double[] getCoords() {
+        return coords;
+    }
+    
+    public Config getPredecessor() {
+        return predecessor;
+    }
+    
     public int getConfigCount() {
 		return coords.length;
 	}
@@ -48,4 +57,49 @@ public class Config {
         }
         return false;
     }
+    
+    /**
+     * the metric used to find the nearest state in a tree: squared distance
+     * between the start points, scaled up heavily when angleAware is set and
+     * the first angles differ by more than 1 rad
+     * @param cfg: the other c-space state
+     * @param angleAware: whether to punish states with a different first angle
+     * @return the distance, smaller means nearer
+     */
+    public double distance(Config cfg, boolean angleAware) {
+        return distance(this.coords, cfg.coords, angleAware);
+    }
+    
+    public static double distance(double[] array1, double[] array2, boolean angleAware) {
+        return distance(array1, 0, array2, angleAware);
+    }
+    
+    /*
+     * the same metric for a state stored at an offset of a larger array
+     */
+    static double distance(double[] array1, int offset, double[] array2, boolean angleAware) {
+        boolean punish = angleAware 
+                && Math.abs(normaliseAngle(array1[offset+2] - array2[2])) > 1;
+        double dist = 0;
+        for (int i = 0; i < 2; i++) {
+            dist += (array1[offset+i] - array2[i]) * (array1[offset+i] - array2[i]);
+            if (punish) {
+                dist *= 10000;
+            }
+        }
+        return dist;
+    }
+    
+    /*
+     * normalise an angle to the range (-pi, pi], the same as Test.normaliseAngle
+     */
+    private static double normaliseAngle(double angle) {
+        while (angle <= -Math.PI) {
+            angle += 2 * Math.PI;
+        }
+        while (angle > Math.PI) {
+            angle -= 2 * Math.PI;
+        }
+        return angle;
+    }
 }
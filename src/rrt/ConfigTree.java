@@ -0,0 +1,146 @@
+package rrt;
+
+import java.util.Arrays;
+
+/**
+ * stores the c-space states of one search tree in contiguous arrays: the
+ * coordinates of node i occupy coords[i*dimensions, (i+1)*dimensions) and
+ * parent[i] is the id of its predecessor, or -1 for the root.
+ * 
+ * Configs produced while extending the tree only live until they are added.
+ * 
+ * For lazy checking, each node records whether the motion from its parent 
+ * has been checked, and nodes can be removed. Removed nodes keep their id, as 
+ * a tombstone which is skipped by the planner.
+ */
+public class ConfigTree {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final byte UNCHECKED = 0;
+    private static final byte CHECKED = 1;
+    private static final byte REMOVED = 2;
+    
+    private final int dimensions;
+    private double[] coords;
+    private int[] parent;
+    private byte[] status;
+    private int size = 0;
+    
+    public ConfigTree(int dimensions) {
+        this.dimensions = dimensions;
+        this.coords = new double[INITIAL_CAPACITY*dimensions];
+        this.parent = new int[INITIAL_CAPACITY];
+        this.status = new byte[INITIAL_CAPACITY];
+    }
+    
+    /**
+     * add a state together with all of its predecessors which are not yet in 
+     * the tree. The chain of predecessors must end at a state of this tree or
+     * at a state without predecessor, which becomes a root.
+     * @param cfg: the state to add
+     * @return the id of the state
+     */
+    public int add(Config cfg) {
+        if (cfg.id >= 0) {
+            return cfg.id;
+        }
+        // count the new states on the chain
+        int count = 0;
+        Config c = cfg;
+        while (c != null && c.id < 0) {
+            count++;
+            c = c.predecessor;
+        }
+        int anchor = c == null? -1 : c.id;
+        while (size + count > parent.length) {
+            grow();
+        }
+        // the predecessors get smaller ids than their successors, the links
+        // between the configs are dropped as the parent array records them
+        int id = size + count - 1;
+        c = cfg;
+        for (int i = 0; i < count; i++) {
+            Config pred = c.predecessor;
+            System.arraycopy(c.coords, 0, coords, id*dimensions, dimensions);
+            parent[id] = i == count - 1? anchor : id - 1;
+            c.id = id;
+            c.predecessor = null;
+            id--;
+            c = pred;
+        }
+        size += count;
+        return cfg.id;
+    }
+    
+    /**
+     * materialise a stored state
+     */
+    public Config get(int id) {
+        Config cfg = new Config(Arrays.copyOfRange(coords, id*dimensions, (id+1)*dimensions));
+        cfg.id = id;
+        return cfg;
+    }
+    
+    public int getParent(int id) {
+        return parent[id];
+    }
+    
+    /**
+     * attach a state to another parent, as done by rewiring. A rewired state
+     * may have a smaller id than its parent, so remove() must not be used on 
+     * a tree which has been rewired
+     */
+    public void setParent(int id, int parentId) {
+        parent[id] = parentId;
+    }
+    
+    /**
+     * whether the motion into the state has been found valid
+     */
+    public boolean isChecked(int id) {
+        return status[id] == CHECKED;
+    }
+    
+    public void setChecked(int id) {
+        status[id] = CHECKED;
+    }
+    
+    public boolean isRemoved(int id) {
+        return status[id] == REMOVED;
+    }
+    
+    /**
+     * remove a state and all of its descendants. A descendant always has a
+     * larger id than its ancestors, so a single pass over the later ids 
+     * reaches all of them
+     */
+    public void remove(int id) {
+        status[id] = REMOVED;
+        for (int i = id + 1; i < size; i++) {
+            if (parent[i] >= 0 && status[parent[i]] == REMOVED) {
+                status[i] = REMOVED;
+            }
+        }
+    }
+    
+    public int getDimensions() {
+        return dimensions;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /*
+     * the backing array of coordinates, replaced whenever the tree grows
+     */
+    double[] getCoords() {
+        return coords;
+    }
+    
+    private void grow() {
+        int capacity = 2*parent.length;
+        coords = Arrays.copyOf(coords, capacity*dimensions);
+        parent = Arrays.copyOf(parent, capacity);
+        status = Arrays.copyOf(status, capacity);
+    }
+}
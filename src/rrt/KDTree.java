@@ -0,0 +1,170 @@
+package rrt;
+
+import java.util.Arrays;
+
+/**
+ * a 2-d tree over the start points (the first two coordinates) of the states 
+ * of a ConfigTree. The tree is grown incrementally; nodes are stored in 
+ * parallel arrays indexed by insertion order.
+ * 
+ * The distance along the split axis is a lower bound of Config.distance for 
+ * both metrics, so subtrees can be pruned safely and the result is the same 
+ * as a linear scan.
+ */
+public class KDTree implements NearestNeighbour {
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private ConfigTree tree;
+    /** the node id in the ConfigTree of each kd-tree node */
+    private int[] ids = new int[INITIAL_CAPACITY];
+    /** coordinates of the start points, x and y interleaved */
+    private double[] points = new double[2*INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    /** split axis of each node, 0 for x and 1 for y */
+    private byte[] axis = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+    
+    /** explicit stack of subtrees used by queries to avoid recursion */
+    private int[] nodes = new int[64];
+    /** lower bounds of the distance to the subtrees on the stack */
+    private double[] bounds = new double[64];
+    private int top;
+    
+    public KDTree(ConfigTree tree) {
+        this.tree = tree;
+    }
+    
+    @Override
+    public void add(int treeId) {
+        if (size == ids.length) {
+            grow();
+        }
+        int id = size++;
+        int offset = treeId*tree.getDimensions();
+        ids[id] = treeId;
+        points[2*id] = tree.getCoords()[offset];
+        points[2*id+1] = tree.getCoords()[offset+1];
+        left[id] = -1;
+        right[id] = -1;
+        if (id == 0) {
+            axis[id] = 0;
+            return;
+        }
+        // descend to a leaf, alternating the split axis
+        int node = 0;
+        while (true) {
+            int a = axis[node];
+            if (points[2*id+a] < points[2*node+a]) {
+                if (left[node] < 0) {
+                    left[node] = id;
+                    break;
+                }
+                node = left[node];
+            } else {
+                if (right[node] < 0) {
+                    right[node] = id;
+                    break;
+                }
+                node = right[node];
+            }
+        }
+        axis[id] = (byte) (1 - axis[node]);
+    }
+
+    @Override
+    public int nearest(double[] t, boolean angleAware) {
+        if (size == 0) {
+            return -1;
+        }
+        double[] coords = tree.getCoords();
+        int dimensions = tree.getDimensions();
+        int best = -1;
+        double bestDist = Double.POSITIVE_INFINITY;
+        top = 0;
+        push(0, 0);
+        
+        while (top > 0) {
+            top--;
+            if (bounds[top] >= bestDist) {
+                // this subtree can't hold a nearer state
+                continue;
+            }
+            int node = nodes[top];
+            if (!tree.isRemoved(ids[node])) {
+                double d = Config.distance(coords, ids[node]*dimensions, t, angleAware);
+                if (d < bestDist) {
+                    bestDist = d;
+                    best = node;
+                }
+            }
+            int a = axis[node];
+            double diff = t[a] - points[2*node+a];
+            int near = diff < 0? left[node] : right[node];
+            int far = diff < 0? right[node] : left[node];
+            // push the far side first so that the near side is searched first
+            if (far >= 0 && diff*diff < bestDist) {
+                push(far, diff*diff);
+            }
+            if (near >= 0) {
+                push(near, 0);
+            }
+        }
+        return best < 0? -1 : ids[best];
+    }
+    
+    @Override
+    public int[] near(double[] t, double radius) {
+        int[] result = new int[16];
+        int count = 0;
+        if (size == 0) {
+            return new int[0];
+        }
+        top = 0;
+        push(0, 0);
+        while (top > 0) {
+            int node = nodes[--top];
+            double dx = points[2*node] - t[0];
+            double dy = points[2*node+1] - t[1];
+            if (dx*dx + dy*dy <= radius*radius && !tree.isRemoved(ids[node])) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, 2*count);
+                }
+                result[count++] = ids[node];
+            }
+            int a = axis[node];
+            double diff = t[a] - points[2*node+a];
+            if (left[node] >= 0 && diff <= radius) {
+                push(left[node], 0);
+            }
+            if (right[node] >= 0 && diff >= -radius) {
+                push(right[node], 0);
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    private void push(int node, double bound) {
+        if (top == nodes.length) {
+            nodes = Arrays.copyOf(nodes, 2*top);
+            bounds = Arrays.copyOf(bounds, 2*top);
+        }
+        nodes[top] = node;
+        bounds[top] = bound;
+        top++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    private void grow() {
+        int capacity = 2*ids.length;
+        ids = Arrays.copyOf(ids, capacity);
+        points = Arrays.copyOf(points, 2*capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        axis = Arrays.copyOf(axis, capacity);
+    }
+}
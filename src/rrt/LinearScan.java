@@ -0,0 +1,67 @@
+package rrt;
+
+import java.util.Arrays;
+
+/**
+ * nearest neighbour search by comparing the target with every state, 
+ * O(n) per query
+ */
+public class LinearScan implements NearestNeighbour {
+    private ConfigTree tree;
+    private int[] ids = new int[1024];
+    private int size = 0;
+    
+    public LinearScan(ConfigTree tree) {
+        this.tree = tree;
+    }
+
+    @Override
+    public void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2*size);
+        }
+        ids[size++] = id;
+    }
+
+    @Override
+    public int nearest(double[] target, boolean angleAware) {
+        double[] coords = tree.getCoords();
+        int dimensions = tree.getDimensions();
+        int result = -1;
+        double dist = Double.POSITIVE_INFINITY;
+        double newDist;
+
+        for (int i = 0; i < size; i++) {
+            if (tree.isRemoved(ids[i])) {
+                continue;
+            }
+            newDist = Config.distance(coords, ids[i]*dimensions, target, angleAware);
+            if (newDist < dist) {
+                dist = newDist;
+                result = ids[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] near(double[] target, double radius) {
+        double[] coords = tree.getCoords();
+        int dimensions = tree.getDimensions();
+        int[] result = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            double dx = coords[ids[i]*dimensions] - target[0];
+            double dy = coords[ids[i]*dimensions+1] - target[1];
+            if (!tree.isRemoved(ids[i]) && dx*dx + dy*dy <= radius*radius) {
+                result[count++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
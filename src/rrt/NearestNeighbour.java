@@ -0,0 +1,35 @@
+package rrt;
+
+/**
+ * an index over the c-space states of one ConfigTree, used to find the state
+ * nearest to a sample. Distances follow Config.distance. States removed from
+ * the tree are skipped.
+ */
+public interface NearestNeighbour {
+    /**
+     * add a state of the tree to the index
+     * @param id: the node id in the tree
+     */
+    void add(int id);
+
+    /**
+     * retrieve the indexed state nearest to the target
+     * @param target: the coordinates of the sampled configuration
+     * @param angleAware: whether states with a different first angle are punished
+     * @return the node id of the nearest state, or -1 if no indexed state is 
+     * left
+     */
+    int nearest(double[] target, boolean angleAware);
+
+    /**
+     * retrieve the indexed states whose start point is within the radius of 
+     * the start point of the target
+     * @return the node ids of the states, in no particular order
+     */
+    int[] near(double[] target, double radius);
+
+    /**
+     * the number of indexed states
+     */
+    int size();
+}
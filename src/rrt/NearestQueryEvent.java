@@ -0,0 +1,22 @@
+package rrt;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * a JFR event of one nearest neighbour query of a planner
+ */
+@Name("rrt.NearestQuery")
+@Label("Nearest Neighbour Query")
+@Category("RRT Planner")
+class NearestQueryEvent extends Event {
+    @Label("Tree Size")
+    int treeSize;
+
+    @Label("Query Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
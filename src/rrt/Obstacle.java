@@ -1,10 +1,7 @@
 package rrt;
 
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Scanner;
+import java.io.IOException;
 
 /**
  * This class represents one of the rectangular obstacles in Assignment 1.
@@ -40,19 +37,41 @@ public class Obstacle {
 	 * @param str
 	 */
 	public Obstacle(String str) {
-		Scanner s = new Scanner(str);
-		List<Double> xs = new ArrayList<Double>();
-		List<Double> ys = new ArrayList<Double>();
+		try {
+			readCorners(new TextTokenizer(str));
+		} catch (IOException e) {
+			// reading from a String can't fail
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Constructs an obstacle from the corners on the current line of a
+	 * tokenizer.
+	 * 
+	 * @param tokens
+	 *            the tokenizer positioned on the corners.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	Obstacle(TextTokenizer tokens) throws IOException {
+		readCorners(tokens);
+	}
+
+	private void readCorners(TextTokenizer tokens) throws IOException {
+		double xMin = Double.POSITIVE_INFINITY;
+		double xMax = Double.NEGATIVE_INFINITY;
+		double yMin = Double.POSITIVE_INFINITY;
+		double yMax = Double.NEGATIVE_INFINITY;
 		for (int i = 0; i < 4; i++) {
-			xs.add(s.nextDouble());
-			ys.add(s.nextDouble());
+			double x = tokens.nextDouble();
+			double y = tokens.nextDouble();
+			xMin = Math.min(xMin, x);
+			xMax = Math.max(xMax, x);
+			yMin = Math.min(yMin, y);
+			yMax = Math.max(yMax, y);
 		}
-		double xMin = Collections.min(xs);
-		double xMax = Collections.max(xs);
-		double yMin = Collections.min(ys);
-		double yMax = Collections.max(ys);
 		this.rect = new Rectangle2D.Double(xMin, yMin, xMax - xMin, yMax - yMin);
-		s.close();
 	}
 
 	/**
@@ -0,0 +1,165 @@
+package rrt;
+
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * A uniform grid over the obstacles of a problem, used to retrieve only the
+ * obstacles near a boom instead of testing all of them. Each cell lists the
+ * obstacles whose bounding rectangle overlaps it.
+ * 
+ * The grid is immutable; it has to be rebuilt whenever the obstacles change.
+ */
+public class ObstacleGrid {
+	/** The maximum number of cells along each axis */
+	private static final int MAX_CELLS = 256;
+
+	/** The indexed obstacles */
+	private List<Obstacle> obstacles;
+	/** The rectangles of the obstacles, cached at construction */
+	private Rectangle2D[] rects;
+
+	private double minX;
+	private double minY;
+	private double cellWidth;
+	private double cellHeight;
+	private int columns;
+	private int rows;
+
+	/** cellItems[cellStart[c], cellStart[c+1]) are the obstacles in cell c */
+	private int[] cellStart;
+	private int[] cellItems;
+	/** The first column and row covered by each obstacle */
+	private int[] firstColumn;
+	private int[] firstRow;
+
+	/**
+	 * Builds a grid over the given obstacles, covering the workspace and all of
+	 * the obstacles.
+	 * 
+	 * @param obstacles
+	 *            the obstacles to index.
+	 */
+	public ObstacleGrid(List<Obstacle> obstacles) {
+		this.obstacles = obstacles;
+		int n = obstacles.size();
+		rects = new Rectangle2D[n];
+		double maxX = 1, maxY = 1;
+		minX = 0;
+		minY = 0;
+		for (int i = 0; i < n; i++) {
+			rects[i] = obstacles.get(i).getRect();
+			minX = Math.min(minX, rects[i].getMinX());
+			minY = Math.min(minY, rects[i].getMinY());
+			maxX = Math.max(maxX, rects[i].getMaxX());
+			maxY = Math.max(maxY, rects[i].getMaxY());
+		}
+		// about one obstacle per cell
+		columns = (int) Math.min(MAX_CELLS, Math.max(1, Math.ceil(Math.sqrt(n))));
+		rows = columns;
+		cellWidth = (maxX - minX) / columns;
+		cellHeight = (maxY - minY) / rows;
+
+		firstColumn = new int[n];
+		firstRow = new int[n];
+		int[] lastColumn = new int[n];
+		int[] lastRow = new int[n];
+		cellStart = new int[columns * rows + 1];
+		for (int i = 0; i < n; i++) {
+			firstColumn[i] = column(rects[i].getMinX());
+			firstRow[i] = row(rects[i].getMinY());
+			lastColumn[i] = column(rects[i].getMaxX());
+			lastRow[i] = row(rects[i].getMaxY());
+			for (int r = firstRow[i]; r <= lastRow[i]; r++) {
+				for (int c = firstColumn[i]; c <= lastColumn[i]; c++) {
+					cellStart[r * columns + c + 1]++;
+				}
+			}
+		}
+		for (int c = 0; c < columns * rows; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		cellItems = new int[cellStart[columns * rows]];
+		int[] fill = cellStart.clone();
+		for (int i = 0; i < n; i++) {
+			for (int r = firstRow[i]; r <= lastRow[i]; r++) {
+				for (int c = firstColumn[i]; c <= lastColumn[i]; c++) {
+					cellItems[fill[r * columns + c]++] = i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the obstacles whose rectangles overlap the given box, boundaries
+	 * included. Each obstacle is reported once, in no particular order.
+	 * 
+	 * @param x0
+	 *            the minimum x-value of the box.
+	 * @param y0
+	 *            the minimum y-value of the box.
+	 * @param x1
+	 *            the maximum x-value of the box.
+	 * @param y1
+	 *            the maximum y-value of the box.
+	 * @param result
+	 *            receives the indices of the obstacles; must have room for
+	 *            size() entries.
+	 * @return the number of obstacles found.
+	 */
+	public int query(double x0, double y0, double x1, double y1, int[] result) {
+		int c0 = column(x0), c1 = column(x1);
+		int r0 = row(y0), r1 = row(y1);
+		int count = 0;
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				int cell = r * columns + c;
+				for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+					int i = cellItems[k];
+					// an obstacle spanning several cells is only reported from the
+					// first cell shared with the box
+					if (Math.max(firstColumn[i], c0) != c
+							|| Math.max(firstRow[i], r0) != r) {
+						continue;
+					}
+					Rectangle2D rect = rects[i];
+					if (rect.getMinX() <= x1 && rect.getMaxX() >= x0
+							&& rect.getMinY() <= y1 && rect.getMaxY() >= y0) {
+						result[count++] = i;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the obstacle with the given index.
+	 * 
+	 * @param i
+	 *            the index of the obstacle.
+	 * @return the obstacle with the given index.
+	 */
+	public Obstacle getObstacle(int i) {
+		return obstacles.get(i);
+	}
+
+	/**
+	 * Returns the number of indexed obstacles.
+	 * 
+	 * @return the number of indexed obstacles.
+	 */
+	public int size() {
+		return rects.length;
+	}
+
+	private int column(double x) {
+		int c = (int) Math.floor((x - minX) / cellWidth);
+		return Math.max(0, Math.min(columns - 1, c));
+	}
+
+	private int row(double y) {
+		int r = (int) Math.floor((y - minY) / cellHeight);
+		return Math.max(0, Math.min(rows - 1, r));
+	}
+}
@@ -0,0 +1,223 @@
+package rrt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * shortens a path by replacing parts of it with straight c-space motions.
+ *
+ * The path is split into one segment per thread and each segment is
+ * shortcut on its own: greedily, by jumping from every state as far ahead
+ * as a valid and cheaper motion reaches, doubling the jump each time, and
+ * then between random pairs of states. The segment boundaries shift between
+ * rounds so that shortcuts can cross them. A shortcut is checked like a
+ * swept edge of the planner and cut into steps of MAX_STEP at the end; the
+ * steps of the original path are kept as they are, as only their end
+ * states are known to be valid. Each segment uses its own planner and seed,
+ * so the result doesn't depend on the scheduling of the threads.
+ */
+public class PathShortcutter {
+    /** the number of random shortcuts tried per segment and round */
+    private static final int RANDOM_ATTEMPTS = 100;
+
+    private int threads;
+    /** planner i checks the shortcuts of segment i */
+    private Planner[] planners;
+    private SplittableRandom[] randoms;
+
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     * @param threads: the number of segments shortcut concurrently
+     * @param seed: the seed of the random shortcuts
+     */
+    public PathShortcutter(ProblemSpec problem, int threads, long seed) {
+        this.threads = threads;
+        planners = new Planner[threads];
+        randoms = new SplittableRandom[threads];
+        for (int i = 0; i < threads; i++) {
+            planners[i] = new Planner(problem, seed + i);
+            randoms[i] = new SplittableRandom(seed + i);
+        }
+    }
+
+    /**
+     * @param path: a valid path from the initial to the goal state
+     * @param rounds: how often every segment is shortcut
+     * @return the shortened path; the shortcuts are cut into steps of 
+     * MAX_STEP and the other steps are kept
+     */
+    public List<ASVConfig> shortcut(List<ASVConfig> path, int rounds)
+            throws InterruptedException {
+        List<Waypoint> states = new ArrayList<Waypoint>();
+        for (ASVConfig state : path) {
+            double[] coords = planners[0].toCoords(state);
+            if (states.isEmpty() || !Arrays.equals(coords, states.get(states.size() - 1).coords)) {
+                states.add(new Waypoint(coords));
+            }
+        }
+        for (int i = 0; i + 1 < states.size(); i++) {
+            states.get(i).cost = Planner.getCost(states.get(i).coords, states.get(i + 1).coords);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < rounds && states.size() > 2; round++) {
+                states = shortcutRound(pool, states, round % 2 == 1);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<double[]> configs = new ArrayList<double[]>();
+        BitSet plain = new BitSet();
+        for (int i = 0; i < states.size(); i++) {
+            configs.add(states.get(i).coords);
+            plain.set(i, !states.get(i).straight);
+        }
+        return planners[0].densify(configs, plain);
+    }
+
+    /*
+     * shortcut every segment concurrently and join the results; the
+     * segments share their end states. Shifted rounds move the boundaries by
+     * half a segment
+     */
+    private List<Waypoint> shortcutRound(ExecutorService pool, List<Waypoint> states,
+            boolean shifted) throws InterruptedException, ExecutionException {
+        int last = states.size() - 1;
+        int length = Math.max(2, last / threads);
+        List<Integer> bounds = new ArrayList<Integer>();
+        bounds.add(0);
+        for (int b = shifted? length/2 : length; b < last && bounds.size() < threads; b += length) {
+            if (b > bounds.get(bounds.size() - 1)) {
+                bounds.add(b);
+            }
+        }
+        bounds.add(last);
+
+        List<Future<List<Waypoint>>> results = new ArrayList<Future<List<Waypoint>>>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            List<Waypoint> part = new ArrayList<Waypoint>(
+                    states.subList(bounds.get(i), bounds.get(i + 1) + 1));
+            results.add(pool.submit(new Segment(part, planners[i], randoms[i])));
+        }
+        List<Waypoint> joined = new ArrayList<Waypoint>();
+        for (Future<List<Waypoint>> result : results) {
+            List<Waypoint> part = result.get();
+            joined.addAll(joined.isEmpty()? part : part.subList(1, part.size()));
+        }
+        return joined;
+    }
+
+    /*
+     * the cost of the straight motion between two states once it is cut
+     * into steps of MAX_STEP. Summing stops once the cost reaches the limit
+     */
+    private static double getMotionCost(double[] start, double[] end, double limit) {
+        int steps = Planner.getStepCount(start, end);
+        double cost = 0;
+        double[] previous = start;
+        for (int i = 1; i <= steps && cost < limit; i++) {
+            double[] next = i == steps? end : Planner.interpolate(start, end, (double) i/steps);
+            cost += Planner.getCost(previous, next);
+            previous = next;
+        }
+        return cost;
+    }
+
+    /*
+     * a state of the path and the motion to the next one
+     */
+    private static class Waypoint {
+        private double[] coords;
+        /** whether the motion to the next state is a checked straight motion */
+        private boolean straight = false;
+        /** the cost of the motion to the next state */
+        private double cost;
+
+        public Waypoint(double[] coords) {
+            this.coords = coords;
+        }
+    }
+
+    /*
+     * the shortcutting of one segment, whose end states are kept. Only the
+     * waypoints a shortcut starts from are changed, which the first state
+     * of the next segment never is
+     */
+    private static class Segment implements Callable<List<Waypoint>> {
+        private List<Waypoint> states;
+        private Planner planner;
+        private SplittableRandom random;
+
+        public Segment(List<Waypoint> states, Planner planner, SplittableRandom random) {
+            this.states = states;
+            this.planner = planner;
+            this.random = random;
+        }
+
+        @Override
+        public List<Waypoint> call() {
+            for (int i = 0; i + 2 < states.size(); i++) {
+                int reached = -1;
+                double cost = 0;
+                for (int jump = 2; i + jump < states.size(); jump *= 2) {
+                    double motionCost = getShortcutCost(i, i + jump);
+                    if (motionCost < 0) {
+                        break;
+                    }
+                    reached = i + jump;
+                    cost = motionCost;
+                }
+                if (reached > 0) {
+                    apply(i, reached, cost);
+                }
+            }
+            for (int attempt = 0; attempt < RANDOM_ATTEMPTS && states.size() > 2; attempt++) {
+                int i = random.nextInt(states.size() - 2);
+                int j = i + 2 + random.nextInt(states.size() - i - 2);
+                double cost = getShortcutCost(i, j);
+                if (cost >= 0) {
+                    apply(i, j, cost);
+                }
+            }
+            return states;
+        }
+
+        /*
+         * the cost of the motion from state i to state j if it is valid and
+         * cheaper than the path between them, otherwise -1
+         */
+        private double getShortcutCost(int i, int j) {
+            double pathCost = 0;
+            for (int k = i; k < j; k++) {
+                pathCost += states.get(k).cost;
+            }
+            double[] start = states.get(i).coords;
+            double[] end = states.get(j).coords;
+            // the distance between the end states is a lower bound of the motion cost
+            if (Planner.getCost(start, end) >= pathCost) {
+                return -1;
+            }
+            double cost = getMotionCost(start, end, pathCost);
+            return cost < pathCost && planner.isValidEdge(start, end)? cost : -1;
+        }
+
+        private void apply(int i, int j, double cost) {
+            Waypoint start = states.get(i);
+            start.straight = true;
+            start.cost = cost;
+            states.subList(i + 1, j).clear();
+        }
+    }
+}
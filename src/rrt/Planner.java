@@ -0,0 +1,1237 @@
+package rrt;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+
+/**
+ * motion planning using bidirectional rapidly exploring random tree.
+ * 
+ * All the state of a run is held by the planner instance, so independent
+ * planners can run concurrently, e.g. as tasks of a thread pool. A planner
+ * works on its own copy of the problem and is meant to be used once.
+ */
+public class Planner implements Callable<List<ASVConfig>> {
+    /** The maximum distance any ASV can travel between two states */
+    private static final double MAX_STEP = 0.001;
+    /** The maximum allowable boom length */
+    private static final double MAX_BOOM_LENGTH = 0.05;
+    
+    private static final double PI = Math.PI;
+    /** the longest step taken with swept edges, as a bound of the workspace move */
+    private static final double EDGE_STEP = 0.05;
+    
+    /** validity checks over the planner's copy of the problem */
+    private Test tester;
+    /** the number of obstacles */
+    private int obsNum;
+    /** dimension degree of c space */
+    private int dimensions;
+    /** initial and goal states in c space */
+    private Config initConfig;
+    private Config goalConfig;
+    /** used to limit the angle range during sampling */
+    private double[] angleRange;
+    /** the orientation */
+    private int clockwise;
+    /** number of total samples */
+    private int total = 0;
+    
+    private int recurrent = 0;
+    
+    /** the seed of the random samples */
+    private long seed;
+    /** the only source of randomness of a search, so that a seed determines the path */
+    private SplittableRandom random;
+    /** the narrow passages between the obstacles, used by sample strategies 2 and 3 */
+    private List<Obstacle> gaps;
+    /** gapAreas[i] is the total area of gaps 0 to i */
+    private double[] gapAreas;
+    /** whether stepMove computes its step directly instead of cutting it repeatedly */
+    private boolean analyticSteering = true;
+    /** whether extensions take long steps checked by the swept collision test */
+    private boolean sweptEdges = false;
+    /** whether collisions and bounds are only checked once the trees connect */
+    private boolean lazyChecks = false;
+    /** the c-space states of the last path found with swept edges */
+    private List<double[]> pathStates;
+    /** receives the states added to the trees, if set */
+    private TreeEventBuffer events;
+    /** the number of states in the initial and goal trees */
+    private int[] treeSizes = new int[2];
+    /** counters and timers of the search */
+    private PlannerMetrics metrics = new PlannerMetrics();
+    /** set to stop a running search */
+    private volatile boolean cancelled = false;
+    /** the search gives up at this System.nanoTime(), if hasDeadline */
+    private long deadline;
+    private boolean hasDeadline = false;
+    
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     */
+    public Planner(ProblemSpec problem) {
+        this(problem, new SplittableRandom().nextLong());
+    }
+    
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     * @param seed: the seed of the random samples; the same seed and problem 
+     * always produce the same path
+     */
+    public Planner(ProblemSpec problem, long seed) {
+        this.tester = new Test(problem.copyProblem());
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        
+        obsNum = tester.ps.obstacles.size();
+        // grow obstacles to avoid collisions
+        if (obsNum > 2) {
+            tester.ps.growObstacles(2e-5);
+        }
+        initSampleSpace();
+        
+        int asvCount = tester.ps.getASVCount();
+        dimensions = asvCount + 1; // dimension degree of c space
+        
+        // get initial and goal states in c space
+        initConfig = asvConfigToCfg(tester.ps.getInitialState());
+        goalConfig = asvConfigToCfg(tester.ps.getGoalState());
+        
+        // check the orientation of initial and goal ASVs
+        if (initConfig.coords.length > 3 && initConfig.coords[3] < 0) {
+            clockwise = -1;
+        } else {
+            clockwise = 1;
+        }
+        // used to limit the angle range during sampling
+        angleRange = getAngleRange(initConfig, goalConfig);
+    }
+    
+    /**
+     * search a path from the initial to the goal state
+     * @return the states of the path, starting with the initial and ending 
+     * with the goal state, or null if the search is cancelled or the deadline
+     * has passed
+     */
+    public List<ASVConfig> plan() {
+        long start = System.nanoTime();
+        List<ASVConfig> solution = search();
+        metrics.searches++;
+        metrics.searchNanos += System.nanoTime() - start;
+        if (PlannerMetrics.isEventsEnabled()) {
+            PlannerMetrics.searchEvent(seed, metrics, solution != null);
+        }
+        return solution;
+    }
+    
+    private List<ASVConfig> search() {
+        // trees used to store found configurations in c-space from initial and goal sides,
+        // and the indices used to find the nearest configuration in each tree
+        ConfigTree initTree = new ConfigTree(dimensions);
+        ConfigTree goalTree = new ConfigTree(dimensions);
+        NearestNeighbour fromInit = new KDTree(initTree);
+        NearestNeighbour fromGoal = new KDTree(goalTree);
+        
+        // add initial and goal into the trees
+        addToTree(initTree, fromInit, initConfig, TreeEventBuffer.INITIAL_TREE);
+        addToTree(goalTree, fromGoal, goalConfig, TreeEventBuffer.GOAL_TREE);
+        
+        // extend tree from both initial and goal point
+        Config initNext = initConfig;
+        Config goalNext = goalConfig;
+        Config sample, nearest1, nearest2;
+        
+        // used to switch different strategies
+        int turn = 0;
+        // extend the trees from both initial and goal sides
+        while (!initNext.equals(goalNext)) {
+            if (cancelled || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+                return null;
+            }
+            total++;
+            if (obsNum != 2 || turn < 3) {
+                // sample strategy 1, normal sample
+                sample = drawSample(0);
+            } else if (turn < 6){
+            	// sample strategy 2, sample in narrow passages
+                sample = drawSample(1);
+            } else {
+                // sample strategy 2, sample in narrow passages
+                sample = drawSample(2);
+            }
+            // find nearest configurations in c-space from both sides and extend the trees
+            if (turn%3 == 1) {
+            	/*
+            	 * extending strategy 1: both the two tree will grow towards the sample
+            	 */
+                nearest1 = findNearest(initTree, fromInit, sample);
+                initNext = findNext2(sample, nearest1);
+                nearest2 = findNearest(goalTree, fromGoal, initNext);
+                goalNext = findNext2(initNext, nearest2);
+                addToTree(initTree, fromInit, initNext, TreeEventBuffer.INITIAL_TREE);
+                addToTree(goalTree, fromGoal, goalNext, TreeEventBuffer.GOAL_TREE);
+                
+            } else if (turn%3 == 2) {
+            	/*
+            	 * extending strategy 2: the goal side grows towards the sample first, then 
+            	 * the initial side grows towards the goal side
+            	 */
+                nearest2 = findNearest(goalTree, fromGoal, sample);
+                goalNext = findNext2(sample, nearest2);
+                nearest1 = findNearest(initTree, fromInit, goalNext);
+                initNext = findNext2(goalNext, nearest1);
+                addToTree(initTree, fromInit, initNext, TreeEventBuffer.INITIAL_TREE);
+                addToTree(goalTree, fromGoal, goalNext, TreeEventBuffer.GOAL_TREE);
+            } else {
+                /*
+                 * extending strategy 3: the initial side grows towards the sample first, then 
+                 * the goal side grows towards the initial side
+                 */
+                nearest1 = findNearest(initTree, fromInit, sample);
+                nearest2 = findNearest(goalTree, fromGoal, sample);
+                initNext = findNext2(sample, nearest1);
+                goalNext = findNext2(sample, nearest2);
+                addToTree(initTree, fromInit, initNext, TreeEventBuffer.INITIAL_TREE);
+                addToTree(goalTree, fromGoal, goalNext, TreeEventBuffer.GOAL_TREE);
+            }
+            if (lazyChecks && initNext.equals(goalNext) 
+                    && !checkPath(initTree, fromInit, initNext.id, 
+                            goalTree, fromGoal, goalNext.id)) {
+                // the invalid states are gone, search on from the others
+                initNext = initConfig;
+                goalNext = goalConfig;
+            }
+            if (total%500 == 0) {
+                // this is the signal to change different strategies
+                turn++;
+                if (turn == 8) turn = 0;
+                System.out.println("samples: " + total);
+            }
+        }
+        // finished
+        if (sweptEdges) {
+            return densify(initTree, initNext.id, goalTree, goalNext.id);
+        }
+        //record the whole path between initial and goal
+        List<ASVConfig> solution = new ArrayList<ASVConfig>();
+        solution.add(tester.ps.getInitialState());
+        solution.addAll(getSol1(initTree, initNext.id));
+        solution.addAll(getSol2(goalTree, goalNext.id));
+        solution.add(tester.ps.getGoalState());
+        return solution;
+    }
+    
+    @Override
+    public List<ASVConfig> call() {
+        return plan();
+    }
+    
+    /**
+     * draw a random c-space state with enough area and convex, as the 
+     * normal sample strategy does
+     */
+    public Config sample() {
+        return drawSample(0);
+    }
+    
+    /*
+     * draw samples with the given strategy until one has enough area and is
+     * convex
+     */
+    private Config drawSample(int strategy) {
+        long start = System.nanoTime();
+        metrics.samples++;
+        Config sample;
+        while (true) {
+            if (strategy == 0) {
+                sample = getRandomPoint(dimensions, angleRange);
+            } else if (strategy == 1) {
+                sample = getRandomPoint2(dimensions, angleRange);
+            } else {
+                sample = getRandomPoint3(dimensions, angleRange);
+            }
+            metrics.strategySamples[strategy]++;
+            if (cSpaceCheck1(cfgToArray(sample))) {
+                break;
+            }
+            metrics.strategyRejects[strategy]++;
+        }
+        metrics.samplingNanos += System.nanoTime() - start;
+        return sample;
+    }
+    
+    /**
+     * extend from a state towards a target, as done for every sample
+     * @return the state reached, linked to from through its predecessors
+     */
+    public Config extend(Config from, Config towards) {
+        return findNext2(towards, from);
+    }
+    
+    /**
+     * choose how a step is limited to MAX_STEP: directly from a bound of the 
+     * workspace movement (the default), or by cutting it until the workspace
+     * distance is small enough
+     */
+    public void setAnalyticSteering(boolean analyticSteering) {
+        this.analyticSteering = analyticSteering;
+    }
+    
+    /**
+     * choose whether a step may be longer than MAX_STEP. With swept edges a
+     * step of up to EDGE_STEP is taken when the whole motion is certified to
+     * be valid, and the path is only cut into steps of MAX_STEP at the end
+     */
+    public void setSweptEdges(boolean sweptEdges) {
+        this.sweptEdges = sweptEdges;
+    }
+    
+    /**
+     * choose whether the trees are grown with only the area and convexity 
+     * checks. Collisions and bounds are then only checked for the states on 
+     * a path once it connects the trees; invalid states are removed together
+     * with their descendants and the search goes on
+     */
+    public void setLazyChecks(boolean lazyChecks) {
+        this.lazyChecks = lazyChecks;
+    }
+    
+    /**
+     * publish every state added to the trees to the buffer, for watching the
+     * search from another thread. Must be set before plan() is called
+     */
+    public void setEventBuffer(TreeEventBuffer events) {
+        this.events = events;
+    }
+    
+    /**
+     * give up the search at the deadline, plan() then returns null. It is
+     * checked before every sample
+     * @param deadline: the deadline in System.nanoTime() units
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+        hasDeadline = true;
+    }
+    
+    /**
+     * stop the search, plan() then returns null. May be called from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+    
+    /**
+     * the number of states in the initial and the goal tree, as last grown
+     */
+    public int[] getTreeSizes() {
+        return treeSizes.clone();
+    }
+    
+    /**
+     * the number of samples drawn so far
+     */
+    public int getSamples() {
+        return total;
+    }
+    
+    /**
+     * the counters and timers of the search so far
+     */
+    public PlannerMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    /*
+     * the c-space states the last path found with swept edges is densified 
+     * from, or null if none was found
+     */
+    List<double[]> getPathStates() {
+        return pathStates;
+    }
+    
+    /**
+     * the c-space coordinates of a workspace state
+     */
+    public double[] toCoords(ASVConfig state) {
+        return asvConfigToCfg(state).coords;
+    }
+    
+    Config getInitConfig() {
+        return initConfig;
+    }
+    
+    Config getGoalConfig() {
+        return goalConfig;
+    }
+    
+    /**
+     * whether the state is valid, with all checks
+     */
+    boolean isValid(Config cfg) {
+        return cSpaceCheck(cfgToArray(cfg));
+    }
+    
+    /*
+     * this method is used to retrieve the path from the tree on the initial side
+     */
+    private ArrayList<ASVConfig> getSol1(ConfigTree tree, int initNext) {
+        ArrayList<ASVConfig> sol1 = getSol2(tree, initNext);
+        Collections.reverse(sol1);
+        return sol1;
+    }
+    /*
+     * this method is used to retrieve the path from the tree on the goal side,
+     * from the given state back to the root (excluded)
+     */
+    private ArrayList<ASVConfig> getSol2(ConfigTree tree, int goalNext) {
+        ArrayList<ASVConfig> sol2 = new ArrayList<ASVConfig>();
+        for (int id = goalNext; tree.getParent(id) >= 0; id = tree.getParent(id)) {
+            sol2.add(cfgToASVConfig(tree.get(id)));
+        }
+        return sol2;
+    }
+    /*
+     * add a state with its new predecessors to a tree and the state itself to
+     * the index of the tree. The new states are published to the event 
+     * buffer, if one is attached
+     * @param side: the tree, TreeEventBuffer.INITIAL_TREE or GOAL_TREE
+     */
+    private void addToTree(ConfigTree tree, NearestNeighbour index, Config cfg, int side) {
+        int size = tree.size();
+        int added = tree.add(cfg);
+        if (tree.size() > size) {
+            // an extension without progress returns a state already indexed
+            index.add(added);
+        }
+        treeSizes[side] = tree.size();
+        if (events != null) {
+            for (int id = size; id < tree.size(); id++) {
+                events.publish(side, id, tree.getParent(id), tree.getCoords(), id*dimensions);
+            }
+        }
+    }
+    
+    /*
+     * lazy checking: check the motions on the path through both trees which 
+     * have not been checked yet
+     * @return whether the whole path is valid
+     */
+    private boolean checkPath(ConfigTree initTree, NearestNeighbour fromInit, 
+            int initNext, ConfigTree goalTree, NearestNeighbour fromGoal, int goalNext) {
+        boolean valid = checkBranch(initTree, fromInit, initNext, TreeEventBuffer.INITIAL_TREE);
+        return checkBranch(goalTree, fromGoal, goalNext, TreeEventBuffer.GOAL_TREE) && valid;
+    }
+    
+    /*
+     * check the motions from the root of the tree to the given state, from 
+     * the root outwards. The first invalid state is removed with all its 
+     * descendants, which include the rest of the branch, and the branch is
+     * repaired by extending from the last valid state towards its end again, 
+     * with all checks
+     */
+    private boolean checkBranch(ConfigTree tree, NearestNeighbour index, int id, int side) {
+        int length = 0;
+        for (int node = id; node >= 0; node = tree.getParent(node)) {
+            length++;
+        }
+        int[] branch = new int[length];
+        for (int node = id; node >= 0; node = tree.getParent(node)) {
+            branch[--length] = node;
+        }
+        for (int i = 1; i < branch.length; i++) {
+            int node = branch[i];
+            if (tree.isChecked(node)) {
+                continue;
+            }
+            double[] start = tree.get(branch[i - 1]).coords;
+            double[] end = tree.get(node).coords;
+            if (isCollisionFree(start, end)) {
+                tree.setChecked(node);
+            } else {
+                Config target = tree.get(id);
+                target.id = -1;
+                tree.remove(node);
+                repair(tree, index, branch[i - 1], target, side);
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /*
+     * extend the tree from a valid state towards the target with all checks,
+     * the new states need not be checked again
+     */
+    private void repair(ConfigTree tree, NearestNeighbour index, int from, Config target,
+            int side) {
+        lazyChecks = false;
+        int size = tree.size();
+        addToTree(tree, index, findNext2(target, tree.get(from)), side);
+        lazyChecks = true;
+        for (int id = size; id < tree.size(); id++) {
+            tree.setChecked(id);
+        }
+    }
+    
+    /*
+     * the checks skipped by lazy checking for the motion from start to end
+     */
+    private boolean isCollisionFree(double[] start, double[] end) {
+        double[] asv = cfgToArray(end);
+        if (!cSpaceCheck2(asv, asv.length/2)) {
+            return false;
+        }
+        return !sweptEdges || getStepCount(start, end) == 1 
+                || !mayCollide(start, end, getMoveBound(start, end));
+    }
+    
+    /*
+     * the path through both trees, with every edge cut into steps within 
+     * MAX_STEP of workspace movement
+     */
+    private List<ASVConfig> densify(ConfigTree initTree, int initNext, 
+            ConfigTree goalTree, int goalNext) {
+        List<double[]> configs = new ArrayList<double[]>();
+        for (int id = initNext; id >= 0; id = initTree.getParent(id)) {
+            configs.add(initTree.get(id).coords);
+        }
+        Collections.reverse(configs);
+        for (int id = goalNext; id >= 0; id = goalTree.getParent(id)) {
+            configs.add(goalTree.get(id).coords);
+        }
+        pathStates = configs;
+        return densify(configs);
+    }
+    
+    /*
+     * the path through the given c-space states, which must start at the 
+     * initial and end at the goal state, cut into steps within MAX_STEP of 
+     * workspace movement
+     */
+    List<ASVConfig> densify(List<double[]> configs) {
+        return densify(configs, new BitSet());
+    }
+    
+    /*
+     * the same, but the motions from the states i with plain.get(i) set are
+     * kept as single steps, as their straight motion hasn't been checked
+     */
+    List<ASVConfig> densify(List<double[]> configs, BitSet plain) {
+        List<ASVConfig> solution = new ArrayList<ASVConfig>();
+        solution.add(tester.ps.getInitialState());
+        for (int i = 1; i < configs.size(); i++) {
+            double[] from = configs.get(i - 1);
+            double[] to = configs.get(i);
+            int steps = plain.get(i - 1)? 1 : getStepCount(from, to);
+            for (int j = 1; j <= steps; j++) {
+                if (i == configs.size() - 1 && j == steps) {
+                    break;
+                }
+                solution.add(new ASVConfig(cfgToArray(interpolate(from, to, (double) j/steps))));
+            }
+        }
+        solution.add(tester.ps.getGoalState());
+        return solution;
+    }
+    
+    /**
+     * the angle range will be used in sampling to improve the efficiency
+     */
+    private double[] getAngleRange(Config initConfig, Config goalConfig) {
+        double[] initCoords = initConfig.coords;
+        double[] goalCoords = goalConfig.coords;
+        double[] angleRange = new double[initCoords.length-2];
+        angleRange[0] = 2*PI;
+        
+        for (int i = 1; i < angleRange.length; i++) {
+            angleRange[i] = (Math.abs(initCoords[i+2]) < Math.abs(goalCoords[i+2])? 
+                    initCoords[i+2]:goalCoords[i+2]);
+        }
+        return angleRange;
+    }
+
+    /**
+     * convert a state from workspace to c space
+     */
+    private Config asvConfigToCfg(ASVConfig initialState) {
+        List<Point2D> positions = initialState.asvPositions;
+        //length
+        double [] pts = new double [initialState.getASVCount()+1];
+        Point2D p0= positions.get(0);
+        pts[0]=p0.getX();
+        pts[1]=p0.getY();
+        double prevAngle=0;
+        for (int i=1;i<positions.size();i++){
+            Point2D p1 = positions.get(i);
+            double currentAngle = Math.atan2(p1.getY() - p0.getY(),
+                    p1.getX() - p0.getX());
+            
+            pts[i+1]=tester.normaliseAngle(PI+prevAngle-currentAngle);
+            
+            prevAngle=currentAngle;
+            p0=p1;
+        }
+        Config cfg = new Config(pts);
+        return cfg;
+    }
+
+    /**
+     * convert a c-space state to an ASVs in workspace
+     * @param C-state
+     * @return ASVs in work space
+     */
+    private ASVConfig cfgToASVConfig(Config cfg) {
+        return new ASVConfig(cfgToArray(cfg));
+    }
+    private double[] cfgToArray(Config cfg) {
+        return cfgToArray(cfg.coords);
+    }
+    
+    /**
+     * convert c-space coordinates to the workspace positions x0, y0, x1, y1, ...
+     */
+    public static double[] cfgToArray(double[] pts) {
+
+        double [] cfgArray= new double[2*(pts.length-1)];
+        double currentX=pts[0];
+        double currentY=pts[1];
+        double prevAngle=0;
+        cfgArray[0]=pts[0];
+        cfgArray[1]=pts[1];
+        int j=1;
+        
+        for (int i=2; i<pts.length;i++){
+            //transfer to angle fit coords, need test
+            double theta=PI+prevAngle-pts[i];
+            currentX = currentX+MAX_BOOM_LENGTH*Math.cos(theta);
+            currentY = currentY+MAX_BOOM_LENGTH*Math.sin(theta);
+            cfgArray[2*j]=currentX;
+            cfgArray[2*j+1]=currentY;
+            j++;
+            //update current theta
+            prevAngle=theta;
+        }
+        return cfgArray;
+    }
+    
+    /**
+     * the following are 3 different sample strategies used to get random C-state
+     * @param dimensions = point.number+2
+     * @param angleRange 
+     * @return a random C-state
+     */
+    private Config getRandomPoint(int dimensions, double[] angleRange) {
+        boolean flag = true;
+        int times = 0;
+        boolean uselimit = true;
+        
+        while (true) {
+            double[] position = new double[(dimensions-1)*2];
+            double pre = 0;
+            flag = true;
+            times++;
+            
+            // start position
+            getStartPosition(position);
+            int i;
+            for(i = 1; i < dimensions-1; i++) {
+                if (uselimit) pre = getNextPoint(pre, angleRange[i-1], position, i);
+                else pre = getNextPoint(pre, 2*PI*clockwise, position, i);
+                if (pre == 10) {
+                    flag = false;
+                    break;
+                }
+            }
+            if (flag == true) {
+                return asvConfigToCfg(new ASVConfig(position));
+            }
+            if (times%50 == 0) {
+                uselimit = false;
+                System.out.println("rand: " + times + " " + i + " "+ position[0] + " " + position[1]);
+            }
+        }
+    }
+    private Config getRandomPoint2(int dimensions, double[] angleRange) {
+        boolean flag = true;
+        int times = 0;
+        boolean uselimit = true;
+        
+        double[] range = angleRange.clone();
+        while (true) {
+            double[] position = new double[(dimensions-1)*2];
+            double pre = 0;
+            flag = true;
+            times++;
+            
+            getSinCor(position);
+            int i;
+            for(i = 1; i < dimensions-1; i++) {
+                if (uselimit) pre = getNextPoint(pre, range[i-1], position, i);
+                else pre = getNextPoint(pre, 2*PI*clockwise, position, i);
+                if (pre == 10) {
+                    flag = false;
+                    break;
+                }
+            }
+            if (flag == true) {
+                return asvConfigToCfg(new ASVConfig(position));
+            }
+            if (times%50 == 0) {
+                uselimit = false;
+                System.out.println("rand: " + times + " " + i + " "+ position[0] + " " + position[1]);
+            }
+        }
+    }
+    private Config getRandomPoint3(int dimensions, double[] angleRange) {
+        boolean flag = true;
+        int times = 0;
+        boolean uselimit = true;
+        
+        double[] range = angleRange.clone();
+        for (int j = 1; j < range.length; j++) {
+            range[j] = -angleRange[range.length-j];
+        }
+        while (true) {
+            double[] position = new double[(dimensions-1)*2];
+            double pre = 0;
+            flag = true;
+            times++;
+            
+            getSinCor(position);
+            int i;
+            for(i = 1; i < dimensions-1; i++) {
+                if (uselimit) pre = getNextPoint(pre, range[i-1], position, i, -clockwise);
+                else pre = getNextPoint(pre, 2*PI*clockwise, position, i, -clockwise);
+                if (pre == 10) {
+                    flag = false;
+                    break;
+                }
+            }
+            if (flag == true) {
+                reversePosition(position);
+                return asvConfigToCfg(new ASVConfig(position));
+            }
+            if (times%50 == 0) {
+                uselimit = false;
+                System.out.println("rand: " + times + " " + i + " "+ position[0] + " " + position[1]);
+            }
+        }
+    }
+    /*
+     * generate the coordinates of a start point when sampling
+     */
+    private void getStartPosition(double[] position) {
+        Point2D p = new Point2D.Double(random.nextDouble(), random.nextDouble());
+        List<Obstacle> obs = tester.ps.obstacles;
+        while (containPoint(obs, p)) {
+            p = new Point2D.Double(random.nextDouble(), random.nextDouble());
+        }
+        position[0] = p.getX();
+        position[1] = p.getY();
+    }
+    private boolean containPoint(List<Obstacle> obs, Point2D p) {
+        for (Obstacle o: obs) {
+            if (o.rect.contains(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * generate parameters of a c-space state one by one when sampling
+     */
+    private double getNextPoint(double pre, double limit, double[] position, int i) {
+        return getNextPoint(pre, limit, position, i, clockwise);
+    }
+    private double getNextPoint(double pre, double limit, double[] position, int i, int clock) {
+        int times = 0;
+        i = i-1;
+        
+        if (i == 0) {
+            while (true && times < 5000) {
+                times++;
+                double angle = random.nextDouble() * 2 * PI;
+                position[2*i+2] = position[2*i] + MAX_BOOM_LENGTH * Math.cos(angle);
+                position[2*i+3] = position[2*i+1] + MAX_BOOM_LENGTH * Math.sin(angle);
+                // only the ASVs placed so far are checked
+                if (cSpaceCheck2(position, i+2)) {
+                    return angle;
+                }
+            }
+        } else {
+            while (true && times < 5000) {
+                times++;
+                limit = limit*clock;//*0.75;
+                double angle = (random.nextDouble()*(PI-limit)+limit)*clock;
+                angle = tester.normaliseAngle(PI + pre - angle);
+                position[2*i+2] = position[2*i] + MAX_BOOM_LENGTH * Math.cos(angle);
+                position[2*i+3] = position[2*i+1] + MAX_BOOM_LENGTH * Math.sin(angle);
+                // only the ASVs placed so far are checked
+                if (cSpaceCheck2(position, i+2)) {
+                    return angle;
+                }
+            }
+        }
+        return 10;
+    }
+
+    /*
+     * reverse an array
+     */
+    private void reversePosition(double[] position) {
+        double[] temp = position.clone();
+        int l = position.length/2;
+        int m;
+        for (int i = 0; i < l; i++) {
+            m = l - 1 - i;
+            position[2*i] = temp[2*m];
+            position[2*i+1] = temp[2*m+1];
+        }
+    }
+    
+    /*
+     * used to check the validity of different aspects, on the coordinates of
+     * the first n ASVs. isValidState() skips the collision and bounds checks
+     * when they are done lazily
+     */
+    private boolean isValidState(double[] asv) {
+        return lazyChecks? cSpaceCheck1(asv) : cSpaceCheck(asv);
+    }
+    private boolean cSpaceCheck(double[] asv) {
+        int n = asv.length/2;
+        metrics.stateChecks++;
+        return passes(tester.hasEnoughArea(asv, n), PlannerMetrics.AREA) 
+                && passes(tester.isConvex(asv, n), PlannerMetrics.CONVEXITY) 
+                && passes(tester.fitsBounds(asv, n), PlannerMetrics.BOUNDS) 
+                && passes(!tester.hasCollision(asv, n), PlannerMetrics.COLLISION);
+    }
+    private boolean cSpaceCheck1(double[] asv) {
+        int n = asv.length/2;
+        metrics.stateChecks++;
+        return passes(tester.hasEnoughArea(asv, n), PlannerMetrics.AREA) 
+                && passes(tester.isConvex(asv, n), PlannerMetrics.CONVEXITY);
+    }
+    private boolean cSpaceCheck2(double[] asv, int n) {
+        metrics.stateChecks++;
+        return passes(tester.fitsBounds(asv, n), PlannerMetrics.BOUNDS) 
+                && passes(!tester.hasCollision(asv, n), PlannerMetrics.COLLISION);
+    }
+    
+    /*
+     * count the failure of a check
+     */
+    private boolean passes(boolean valid, int check) {
+        if (!valid) {
+            metrics.checkFailures[check]++;
+        }
+        return valid;
+    }
+    
+    /**
+     * retrieve a configuration which is nearest to the sampled c-space state
+     * @param tree: all found configuration
+     * @param allConfig: the index over the tree
+     * @param target: the sampled configuration
+     * @return
+     */
+    private Config findNearest(ConfigTree tree, NearestNeighbour allConfig, Config sample) {
+        // on odd samples states with a different first angle are punished
+        long start = System.nanoTime();
+        int id = allConfig.nearest(sample.coords, total%2 == 1);
+        metrics.nearestQueries++;
+        metrics.nearestNanos += System.nanoTime() - start;
+        if (PlannerMetrics.isEventsEnabled()) {
+            PlannerMetrics.nearestQueryEvent(start, allConfig.size());
+        }
+        return tree.get(id);
+    }
+    
+    /**
+     * find the next vertex to extend the tree towards to the sample
+     * @param sample: the sampled configuration
+     * @param near: nearest configuration to the sample
+     * @return: expanded configuration towards the sample from nearest
+     */
+    private Config findNext2(Config end, Config start) {
+        if (recurrent > 0) {
+            // called again by stepMove after increasing the angles
+            metrics.recursions++;
+            return moveTowards(end, start);
+        }
+        long begin = System.nanoTime();
+        Config result = moveTowards(end, start);
+        metrics.extensions++;
+        metrics.extensionNanos += System.nanoTime() - begin;
+        return result;
+    }
+    
+    /*
+     * the steps of findNext2, alternating between the directions
+     */
+    private Config moveTowards(Config end, Config start) {
+        int same = 0;
+        Config y_temp = start;
+        Config result;
+        
+        while (true) {
+            if (cancelled) {
+                // the caller stops the search at the next sample
+                return y_temp;
+            }
+            // move one step size on the direction of x and y respectively
+            metrics.extensionSteps++;
+            Config x = stepMove(y_temp, end, 0);
+            Config y = stepMove(x, end, 1);
+            
+            if (x.equals(y_temp) && y.equals(x)) {  //  can't move any more on both x and y direction 
+                return y;
+            } else if (y.equals(end)) { // encounter the target point
+                return y;
+            }
+            
+            if (y.isSame(y_temp)) {
+                same++;
+                if (same == 1) result = y;
+            } else {
+                same = 0;
+            }
+            if (same == 10) {
+                return y;
+            }
+            y_temp = y;
+        }
+    }
+    
+    /**
+     * move horizontally or vertically within one step size
+     * @param direction: 0 and 1 means move horizontally and vertically respectively
+     * @throws IOException 
+     */
+    private Config stepMove(Config start, Config goal, int direction) {
+        if (sweptEdges) {
+            Config end = sweptStep(start, goal, direction);
+            if (end != null) {
+                end.predecessor = start;
+                return end;
+            }
+        }
+        Config end = analyticSteering? steer(start, goal, direction, MAX_STEP) 
+                : cutSteps(start, goal, direction);
+        // check whether the extended point is valid
+        if (isValidState(cfgToArray(end))) {
+            end.predecessor = start;
+            return end;
+        } else {
+            // if not valid, try to enlarge the angles
+            Config trans = increaseAngle(end);
+            if (trans != null) {
+                recurrent++;    // this is used to avoid infinitive recursion
+                Config result;
+                if (recurrent < 2) {
+                    // call findNext recursively
+                    result = findNext2(trans, start);
+                } else {
+                    result = start;
+                }
+                recurrent--;
+                return result;
+            }
+        }
+        return start;
+    }
+
+    private Config increaseAngle(Config cfg) {
+        double[] coords = cfg.coords.clone();
+        metrics.angleIncreases++;
+        // increase the angles by by a small value at each step
+        for (int i = 0; i < 10; i++) {
+            metrics.angleRetries++;
+            coords[2] *= clockwise;
+            coords[2] -= PI/180;
+            coords[2] *= clockwise;
+            for (int j = 3; j < coords.length; j++) {
+                coords[j] *= clockwise;
+                if (coords[j] + PI/270 < PI) {
+                    coords[j] += PI/270;
+                }
+                coords[j] *= clockwise;
+            }
+            cfg = new Config(coords);
+            if (isValidState(cfgToArray(cfg))) {
+                return cfg;
+            }
+        }
+        // if no valid c-space state is found, return null
+        metrics.angleFailures++;
+        return null;
+    }
+
+    /*
+     * take the longest step towards goal, trying shorter ones while the step 
+     * is invalid. Returns null if no step longer than MAX_STEP is valid
+     */
+    private Config sweptStep(Config start, Config goal, int direction) {
+        for (double step = EDGE_STEP; step > MAX_STEP; step /= 4) {
+            Config end = steer(start, goal, direction, step);
+            if (getMoveBound(start.coords, end.coords) <= MAX_STEP) {
+                // a plain step does
+                return null;
+            }
+            if (isValidState(cfgToArray(end)) && isValidEdge(start.coords, end.coords)) {
+                return end;
+            }
+        }
+        return null;
+    }
+    
+    /*
+     * whether every state on the straight c-space motion from start to end is
+     * valid. Collisions and bounds are certified for the whole motion by the 
+     * swept test, unless checked lazily; area and convexity are checked at 
+     * the states the edge is cut into by densify()
+     */
+    boolean isValidEdge(double[] start, double[] end) {
+        long begin = System.nanoTime();
+        boolean valid = isValidMotion(start, end);
+        metrics.edgeChecks++;
+        metrics.edgeNanos += System.nanoTime() - begin;
+        return valid;
+    }
+    
+    private boolean isValidMotion(double[] start, double[] end) {
+        int steps = getStepCount(start, end);
+        for (int i = 1; i < steps; i++) {
+            if (!cSpaceCheck1(cfgToArray(interpolate(start, end, (double) i/steps)))) {
+                return false;
+            }
+        }
+        return lazyChecks || !mayCollide(start, end, getMoveBound(start, end));
+    }
+    
+    /*
+     * the swept test of a c-space motion: no ASV moves further than bound/2 
+     * from its position in the middle state, so the motion is valid if that 
+     * state is valid with each ASV moved by up to bound/2. Otherwise the 
+     * halves are tested, down to the precision of the tester
+     */
+    private boolean mayCollide(double[] start, double[] end, double bound) {
+        double[] middle = interpolate(start, end, 0.5);
+        double[] asv = cfgToArray(middle);
+        if (!tester.mayCollide(asv, asv.length/2, bound/2)) {
+            return false;
+        } else if (bound/2 <= Test.DEFAULT_MAX_ERROR) {
+            return true;
+        }
+        return mayCollide(start, middle, bound/2) || mayCollide(middle, end, bound/2);
+    }
+    
+    /*
+     * the number of steps within MAX_STEP the motion from start to end is cut into
+     */
+    static int getStepCount(double[] start, double[] end) {
+        return Math.max(1, (int) Math.ceil(getMoveBound(start, end) / MAX_STEP));
+    }
+    
+    static double[] interpolate(double[] start, double[] end, double fraction) {
+        double[] result = new double[start.length];
+        for (int i = 0; i < start.length; i++) {
+            result[i] = start[i] + (end[i] - start[i])*fraction;
+        }
+        return result;
+    }
+    
+    /*
+     * the total distance of the ASVs between two c-space states, the cost 
+     * of a step as for ASVConfig.totalDistance
+     */
+    static double getCost(double[] start, double[] end) {
+        double[] asvStart = cfgToArray(start);
+        double[] asvEnd = cfgToArray(end);
+        double total = 0;
+        for (int i = 0; i < asvStart.length; i += 2) {
+            double dx = asvStart[i] - asvEnd[i];
+            double dy = asvStart[i+1] - asvEnd[i+1];
+            total += Math.sqrt(dx*dx + dy*dy);
+        }
+        return total;
+    }
+    
+    /*
+     * a bound of how far any ASV moves on the straight c-space motion from 
+     * start to end; it is linear in the length of the motion
+     */
+    static double getMoveBound(double[] start, double[] end) {
+        double dx = end[0] - start[0];
+        double dy = end[1] - start[1];
+        return Math.sqrt(dx*dx + dy*dy) + getBoomMove(start, end);
+    }
+    
+    /*
+     * rotating a boom by an angle moves its end by at most the boom length 
+     * times the angle, so the booms add at most MAX_BOOM_LENGTH times the sum
+     * of the heading changes of all booms to the move of the base
+     */
+    private static double getBoomMove(double[] start, double[] end) {
+        double heading = 0;
+        double turned = 0;
+        for (int i = 2; i < start.length; i++) {
+            heading += end[i] - start[i];
+            turned += Math.abs(heading);
+        }
+        return MAX_BOOM_LENGTH * turned;
+    }
+    
+    /*
+     * move from start towards goal by the largest fraction whose workspace 
+     * step is guaranteed to be within maxStep, without converting to the
+     * workspace, using the bound of getMoveBound().
+     * The move is along the given direction only, unless the goal is reached
+     * within one step.
+     */
+    private Config steer(Config start, Config goal, int direction, double maxStep) {
+        double[] coords1 = start.coords;
+        double[] coords2 = goal.coords;
+        double boomMove = getBoomMove(coords1, coords2);
+        double dx = coords2[0] - coords1[0];
+        double dy = coords2[1] - coords1[1];
+        if (Math.sqrt(dx*dx + dy*dy) + boomMove <= maxStep) {
+            return new Config(goal.coords);
+        }
+        
+        double[] result = new double[coords1.length];
+        double move = Math.abs(coords2[direction] - coords1[direction]) + boomMove;
+        double fraction = Math.min(1, maxStep / move);
+        result[direction] = coords1[direction] + (coords2[direction] - coords1[direction])*fraction;
+        result[1-direction] = coords1[1-direction];
+        for (int i = 2; i < coords1.length; i++) {
+            result[i] = coords1[i] + (coords2[i] - coords1[i])*fraction;
+        }
+        return new Config(result);
+    }
+    
+    /*
+     * move from start towards goal, cutting the distance until the workspace 
+     * step size is valid
+     */
+    private Config cutSteps(Config start, Config goal, int direction) {
+        Config end = new Config(goal.coords);
+        double step = maxDistance(start, end);
+        
+        while (step > MAX_STEP) {
+            end = cutDist2(step, start, end, direction);
+            step = maxDistance(start, end);
+        }
+        return end;
+    }
+
+    /**
+     * scale down the distance by a factor
+     * @param start
+     * @param end
+     * @return
+     */
+    private Config cutDist2(double step, Config start, Config end, int direction) {
+        double[] coords1 = start.coords;
+        double[] coords2 = end.coords;
+        double[] result = new double[coords1.length];
+        double scalar = step/MAX_STEP;
+        if (scalar < 1.4) scalar = 1.4;
+        
+        result[direction] = coords1[direction] + (coords2[direction] - coords1[direction])/scalar;
+        result[1-direction] = coords1[1-direction];
+        for (int i = 2; i < coords1.length; i++) {
+            result[i] = coords1[i] + (coords2[i] - coords1[i])/scalar;
+        }
+        return new Config(result);
+    }
+    /*
+     * the corresponding workspace max distance between two c-space states
+     */
+    private double maxDistance(Config start, Config end) {
+        ASVConfig asv1 = cfgToASVConfig(start);
+        ASVConfig asv2 = cfgToASVConfig(end);
+        return asv1.maxDistance(asv2);
+    }
+    
+
+    private List<Obstacle> SampleSpace(List<Obstacle> obs){
+        List<Double> x = new ArrayList<Double>();
+        List<Double> y = new ArrayList<Double>();
+        List<Double> w = new ArrayList<Double>();
+        List<Double> h = new ArrayList<Double>();
+        
+        List<Obstacle> rects = new ArrayList<Obstacle>();
+        for (int i=0; i<obs.size();i++){
+            x.add(obs.get(i).getRect().getX());
+            y.add(obs.get(i).getRect().getY());
+            w.add(obs.get(i).getRect().getWidth());
+            h.add(obs.get(i).getRect().getHeight());
+        }
+        for (int i=0, j=1; i<obs.size()-1;i++, j++){
+            //can change to scale
+            double left = x.get(i);
+            double right = x.get(j);
+            if(left==right){
+                Obstacle rect = new Obstacle
+                        (x.get(i), y.get(i)+h.get(i), w.get(i), Math.abs(y.get(j)-y.get(i)-h.get(i)));
+                rects.add(rect);
+            }
+        }
+        return rects;
+    }
+    
+    /*
+     * sample a start point in the narrow passages, uniformly over the area of 
+     * the gap regions: a region is chosen with probability proportional to 
+     * its area, then a point inside it
+     */
+    private void getSinCor(double[] position) {
+        if (gaps.isEmpty()) {
+            // no passage between the obstacles, sample the free space instead
+            getStartPosition(position);
+            return;
+        }
+        double r = random.nextDouble() * gapAreas[gapAreas.length-1];
+        int i = 0;
+        while (i < gapAreas.length-1 && r >= gapAreas[i]) {
+            i++;
+        }
+        Rectangle2D rect = gaps.get(i).rect;
+        position[0] = rect.getX() + random.nextDouble() * rect.getWidth();
+        position[1] = rect.getY() + random.nextDouble() * rect.getHeight();
+    }
+    
+    /*
+     * compute the narrow passages once per problem, together with their 
+     * cumulative areas. A gap between obstacles which aren't stacked upwards
+     * can reach out of the workspace, so each is clipped to the workspace;
+     * regions without area are left out
+     */
+    private void initSampleSpace() {
+        gaps = new ArrayList<Obstacle>();
+        for (Obstacle o: SampleSpace(tester.ps.obstacles)) {
+            Rectangle2D gap = o.rect.createIntersection(Test.BOUNDS);
+            if (!gap.isEmpty()) {
+                gaps.add(new Obstacle(gap.getX(), gap.getY(), gap.getWidth(), gap.getHeight()));
+            }
+        }
+        gapAreas = new double[gaps.size()];
+        double area = 0;
+        for (int i = 0; i < gaps.size(); i++) {
+            area += gaps.get(i).rect.getWidth() * gaps.get(i).rect.getHeight();
+            gapAreas[i] = area;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package rrt;
+
+import java.util.Locale;
+
+/**
+ * counters and timers of the hot phases of a search: sampling per strategy,
+ * nearest neighbour queries, state checks by the check that failed, tree
+ * extensions and their recursions, and the angle increases tried when a
+ * step is invalid. Each planner counts into its own instance, without
+ * synchronisation; the metrics of several planners are added up with add().
+ *
+ * When events are enabled, a JFR event is also emitted for every search and
+ * every nearest neighbour query, so that a flight recording shows them on
+ * the timeline.
+ */
+public class PlannerMetrics {
+    /** the checks of a state, in the order they are tried */
+    static final int AREA = 0;
+    static final int CONVEXITY = 1;
+    static final int BOUNDS = 2;
+    static final int COLLISION = 3;
+    private static final String[] CHECK_NAMES = {"area", "convexity", "bounds", "collision"};
+    /** the sample strategies: getRandomPoint, getRandomPoint2 and getRandomPoint3 */
+    static final int STRATEGIES = 3;
+
+    private static volatile boolean eventsEnabled = false;
+
+    long samples;
+    long samplingNanos;
+    long[] strategySamples = new long[STRATEGIES];
+    long[] strategyRejects = new long[STRATEGIES];
+    long nearestQueries;
+    long nearestNanos;
+    long stateChecks;
+    long[] checkFailures = new long[CHECK_NAMES.length];
+    long extensions;
+    long extensionNanos;
+    long extensionSteps;
+    long recursions;
+    long angleIncreases;
+    long angleRetries;
+    long angleFailures;
+    long edgeChecks;
+    long edgeNanos;
+    long searches;
+    long searchNanos;
+
+    /**
+     * choose whether JFR events are emitted. They are recorded only while a
+     * flight recording is running, e.g. with -XX:StartFlightRecording
+     */
+    public static void setEventsEnabled(boolean enabled) {
+        eventsEnabled = enabled;
+    }
+
+    static boolean isEventsEnabled() {
+        return eventsEnabled;
+    }
+
+    /**
+     * add the counts of another planner to these
+     */
+    public void add(PlannerMetrics other) {
+        samples += other.samples;
+        samplingNanos += other.samplingNanos;
+        for (int i = 0; i < STRATEGIES; i++) {
+            strategySamples[i] += other.strategySamples[i];
+            strategyRejects[i] += other.strategyRejects[i];
+        }
+        nearestQueries += other.nearestQueries;
+        nearestNanos += other.nearestNanos;
+        stateChecks += other.stateChecks;
+        for (int i = 0; i < checkFailures.length; i++) {
+            checkFailures[i] += other.checkFailures[i];
+        }
+        extensions += other.extensions;
+        extensionNanos += other.extensionNanos;
+        extensionSteps += other.extensionSteps;
+        recursions += other.recursions;
+        angleIncreases += other.angleIncreases;
+        angleRetries += other.angleRetries;
+        angleFailures += other.angleFailures;
+        edgeChecks += other.edgeChecks;
+        edgeNanos += other.edgeNanos;
+        searches += other.searches;
+        searchNanos += other.searchNanos;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getNearestQueries() {
+        return nearestQueries;
+    }
+
+    public long getStateChecks() {
+        return stateChecks;
+    }
+
+    /**
+     * a JSON object of all the counters, with times in milliseconds
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(format("  \"searches\": %d,\n", searches));
+        json.append(format("  \"searchMs\": %.3f,\n", searchNanos / 1e6));
+        json.append(format("  \"samples\": %d,\n", samples));
+        json.append(format("  \"samplingMs\": %.3f,\n", samplingNanos / 1e6));
+        json.append("  \"strategies\": [");
+        for (int i = 0; i < STRATEGIES; i++) {
+            json.append(format("%s{\"drawn\": %d, \"rejected\": %d}", i > 0? ", " : "",
+                    strategySamples[i], strategyRejects[i]));
+        }
+        json.append("],\n");
+        json.append(format("  \"nearest\": {\"queries\": %d, \"totalMs\": %.3f, \"meanUs\": %.3f},\n",
+                nearestQueries, nearestNanos / 1e6, mean(nearestNanos, nearestQueries) / 1e3));
+        json.append(format("  \"stateChecks\": {\"calls\": %d, \"failed\": {", stateChecks));
+        for (int i = 0; i < CHECK_NAMES.length; i++) {
+            json.append(format("%s\"%s\": %d", i > 0? ", " : "", CHECK_NAMES[i], checkFailures[i]));
+        }
+        json.append("}},\n");
+        json.append(format("  \"extensions\": {\"calls\": %d, \"steps\": %d, \"recursions\": %d, \"totalMs\": %.3f},\n",
+                extensions, extensionSteps, recursions, extensionNanos / 1e6));
+        json.append(format("  \"increaseAngle\": {\"calls\": %d, \"retries\": %d, \"failures\": %d},\n",
+                angleIncreases, angleRetries, angleFailures));
+        json.append(format("  \"edgeChecks\": {\"calls\": %d, \"totalMs\": %.3f}\n",
+                edgeChecks, edgeNanos / 1e6));
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String format(String format, Object... args) {
+        // JSON numbers always use a decimal point
+        return String.format(Locale.ROOT, format, args);
+    }
+
+    private static double mean(long total, long count) {
+        return count == 0? 0 : (double) total / count;
+    }
+
+    /*
+     * emit the event of a nearest neighbour query which started at the given time
+     */
+    static void nearestQueryEvent(long startNanos, int treeSize) {
+        NearestQueryEvent event = new NearestQueryEvent();
+        event.treeSize = treeSize;
+        event.nanos = System.nanoTime() - startNanos;
+        event.commit();
+    }
+
+    /*
+     * emit the event of a finished search, with its counters
+     */
+    static void searchEvent(long seed, PlannerMetrics metrics, boolean found) {
+        SearchEvent event = new SearchEvent();
+        event.seed = seed;
+        event.found = found;
+        event.samples = metrics.samples;
+        event.nearestQueries = metrics.nearestQueries;
+        event.stateChecks = metrics.stateChecks;
+        event.extensions = metrics.extensions;
+        event.recursions = metrics.recursions;
+        event.searchNanos = metrics.searchNanos;
+        event.commit();
+    }
+}
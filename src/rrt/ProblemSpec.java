@@ -1,14 +1,14 @@
 package rrt;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.awt.geom.Rectangle2D;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
 
 /**
  * This class represents the specifications of a given problem and solution;
@@ -35,6 +35,8 @@ public class ProblemSpec {
     protected ASVConfig goalState;
 	/** The obstacles */
     protected List<Obstacle> obstacles;
+	/** The spatial index over the obstacles */
+    protected ObstacleGrid obstacleGrid;
 
 	/** The path taken in the solution */
     protected List<ASVConfig> path;
@@ -53,54 +55,57 @@ public class ProblemSpec {
 	public void loadProblem(String filename) throws IOException {
 		problemLoaded = false;
 		solutionLoaded = false;
-		BufferedReader input = new BufferedReader(new FileReader(filename));
-		String line;
-		int lineNo = 0;
-		Scanner s;
+		InputStream input = new FileInputStream(filename);
+		TextTokenizer tokens = new TextTokenizer(input);
 		try {
-			line = input.readLine();
-			lineNo++;
-			s = new Scanner(line);
-			asvCount = s.nextInt();
-			s.close();
+			nextLine(tokens);
+			asvCount = tokens.nextInt();
 
-			line = input.readLine();
-			lineNo++;
-			initialState = new ASVConfig(asvCount, line);
+			nextLine(tokens);
+			initialState = new ASVConfig(asvCount, tokens);
 
-			line = input.readLine();
-			lineNo++;
-			goalState = new ASVConfig(asvCount, line);
+			nextLine(tokens);
+			goalState = new ASVConfig(asvCount, tokens);
 
-			line = input.readLine();
-			lineNo++;
-			s = new Scanner(line);
-			int numObstacles = s.nextInt();
-			s.close();
+			nextLine(tokens);
+			int numObstacles = tokens.nextInt();
 
 			obstacles = new ArrayList<Obstacle>();
 			for (int i = 0; i < numObstacles; i++) {
-				line = input.readLine();
-				lineNo++;
-				obstacles.add(new Obstacle(line));
+				nextLine(tokens);
+				obstacles.add(new Obstacle(tokens));
 			}
+			obstacleGrid = new ObstacleGrid(obstacles);
 
 			problemLoaded = true;
 		} catch (InputMismatchException e) {
 			throw new IOException(String.format(
-					"Invalid number format on line %d: %s", lineNo,
-					e.getMessage()));
+					"Invalid number format on line %d: %s",
+					tokens.getLineNumber(), e.getMessage()));
 		} catch (NoSuchElementException e) {
 			throw new IOException(String.format("Not enough tokens on line %d",
-					lineNo));
-		} catch (NullPointerException e) {
-			throw new IOException(String.format(
-					"Line %d expected, but file ended.", lineNo));
+					tokens.getLineNumber()));
 		} finally {
 			input.close();
 		}
 	}
 
+	/**
+	 * Moves the tokenizer to the next line, which must exist.
+	 * 
+	 * @param tokens
+	 *            the tokenizer of the file being loaded.
+	 * @throws IOException
+	 *             if the file has ended.
+	 */
+	static void nextLine(TextTokenizer tokens) throws IOException {
+		if (!tokens.nextLine()) {
+			throw new IOException(String.format(
+					"Line %d expected, but file ended.",
+					tokens.getLineNumber() + 1));
+		}
+	}
+
 	/**
 	 * Loads a solution from a solution text file.
 	 * 
@@ -115,38 +120,43 @@ public class ProblemSpec {
 			return;
 		}
 		solutionLoaded = false;
-		BufferedReader input = new BufferedReader(new FileReader(filename));
-		String line;
-		int lineNo = 0;
-		Scanner s;
+		if (BinarySolution.isBinary(filename)) {
+			loadBinarySolution(filename);
+			return;
+		}
+		SolutionReader reader = new SolutionReader(filename, asvCount);
 		try {
-			line = input.readLine();
-			lineNo++;
-			s = new Scanner(line);
-			int pathLength = s.nextInt() + 1;
-			solutionCost = s.nextDouble();
-			s.close();
-
+			solutionCost = reader.getCost();
 			path = new ArrayList<ASVConfig>();
-			for (int i = 0; i < pathLength; i++) {
-				line = input.readLine();
-				lineNo++;
-				path.add(new ASVConfig(asvCount, line));
+			while (reader.hasNext()) {
+				path.add(reader.next());
 			}
 			solutionLoaded = true;
-		} catch (InputMismatchException e) {
-			throw new IOException(String.format(
-					"Invalid number format on line %d: %s", lineNo,
-					e.getMessage()));
-		} catch (NoSuchElementException e) {
-			throw new IOException(String.format("Not enough tokens on line %d",
-					lineNo));
-		} catch (NullPointerException e) {
-			throw new IOException(String.format(
-					"Line %d expected, but file ended.", lineNo));
 		} finally {
-			input.close();
+			reader.close();
+		}
+	}
+
+	/**
+	 * Loads a solution from a binary solution file. The file is memory-mapped
+	 * and the states of the path are decoded only when accessed.
+	 * 
+	 * @param filename
+	 *            the path of the binary file to load.
+	 * @throws IOException
+	 *             if the file is not a valid binary solution for the loaded
+	 *             problem.
+	 */
+	private void loadBinarySolution(String filename) throws IOException {
+		BinarySolution solution = BinarySolution.load(filename);
+		if (solution.getASVCount() != asvCount) {
+			throw new IOException(String.format(
+					"Solution has %d ASVs, but the problem has %d",
+					solution.getASVCount(), asvCount));
 		}
+		path = solution.getStates();
+		solutionCost = solution.getCost();
+		solutionLoaded = true;
 	}
 
 	/**
@@ -162,13 +172,7 @@ public class ProblemSpec {
 		if (!problemLoaded || !solutionLoaded) {
 			return;
 		}
-		String ls = System.getProperty("line.separator");
-		FileWriter output = new FileWriter(filename);
-		output.write(String.format("%d %f%s", path.size() - 1, solutionCost, ls));
-		for (ASVConfig cfg : path) {
-			output.write(cfg + ls);
-		}
-		output.close();
+		new SolutionWriter(filename).write(path, solutionCost);
 	}
 
 	/**
@@ -238,6 +242,60 @@ public class ProblemSpec {
 		return new ArrayList<Obstacle>(obstacles);
 	}
 
+	/**
+	 * Returns a read-only view of the obstacles, without copying them.
+	 * 
+	 * @return a read-only view of the obstacles.
+	 */
+	public List<Obstacle> getObstacleView() {
+		return Collections.unmodifiableList(obstacles);
+	}
+
+	/**
+	 * Returns a copy of the loaded problem with its own obstacles, so that the
+	 * copy can be modified independently. The solution is not copied.
+	 * 
+	 * @return a copy of the loaded problem.
+	 */
+	public ProblemSpec copyProblem() {
+		ProblemSpec copy = new ProblemSpec();
+		copy.asvCount = asvCount;
+		copy.initialState = initialState;
+		copy.goalState = goalState;
+		copy.obstacles = new ArrayList<Obstacle>();
+		for (Obstacle o : obstacles) {
+			Rectangle2D rect = o.getRect();
+			copy.obstacles.add(new Obstacle(rect.getX(), rect.getY(),
+					rect.getWidth(), rect.getHeight()));
+		}
+		copy.obstacleGrid = new ObstacleGrid(copy.obstacles);
+		copy.problemLoaded = problemLoaded;
+		return copy;
+	}
+
+	/**
+	 * Returns the spatial index over the obstacles.
+	 * 
+	 * @return the spatial index over the obstacles.
+	 */
+	public ObstacleGrid getObstacleGrid() {
+		return obstacleGrid;
+	}
+
+	/**
+	 * Grows every obstacle by delta in each direction, and rebuilds the
+	 * spatial index accordingly.
+	 * 
+	 * @param delta
+	 *            the amount to expand by.
+	 */
+	public void growObstacles(double delta) {
+		for (Obstacle o : obstacles) {
+			o.rect = Test.grow(o.rect, delta);
+		}
+		obstacleGrid = new ObstacleGrid(obstacles);
+	}
+
 	/**
 	 * Sets the path.
 	 * 
@@ -262,6 +320,17 @@ public class ProblemSpec {
 		return new ArrayList<ASVConfig>(path);
 	}
 
+	/**
+	 * Returns a read-only view of the solution path, without copying it. The
+	 * view supports random access in constant time, also for a binary
+	 * solution, whose states are decoded as they are accessed.
+	 * 
+	 * @return a read-only view of the solution path.
+	 */
+	public List<ASVConfig> getPathView() {
+		return Collections.unmodifiableList(path);
+	}
+
 	/**
 	 * Returns the cost of the solution.
 	 * 
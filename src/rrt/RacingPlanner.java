@@ -0,0 +1,139 @@
+package rrt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs independent planners with different seeds on separate threads and 
+ * keeps the first path found; the other searches are cancelled. The run time
+ * of a single search depends heavily on its random samples, so racing 
+ * several of them cuts off the long tail.
+ */
+public class RacingPlanner {
+    private ProblemSpec problem;
+    private int threads;
+    /** planner i uses seed + i */
+    private long seed;
+    
+    private boolean sweptEdges = false;
+    private boolean lazyChecks = false;
+    
+    private List<Planner> planners = new ArrayList<Planner>();
+    private Planner winner;
+    
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     * @param threads: the number of concurrent searches
+     * @param seed: the seed of the first search
+     */
+    public RacingPlanner(ProblemSpec problem, int threads, long seed) {
+        this.problem = problem;
+        this.threads = threads;
+        this.seed = seed;
+    }
+    
+    /**
+     * see Planner.setSweptEdges
+     */
+    public void setSweptEdges(boolean sweptEdges) {
+        this.sweptEdges = sweptEdges;
+    }
+    
+    /**
+     * see Planner.setLazyChecks
+     */
+    public void setLazyChecks(boolean lazyChecks) {
+        this.lazyChecks = lazyChecks;
+    }
+    
+    /**
+     * search a path with all the planners, returning when the first one succeeds
+     * @return the states of the first path found
+     */
+    public List<ASVConfig> plan() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<List<ASVConfig>> completion = 
+                new ExecutorCompletionService<List<ASVConfig>>(pool);
+        Map<Future<List<ASVConfig>>, Planner> running = 
+                new HashMap<Future<List<ASVConfig>>, Planner>();
+        for (int i = 0; i < threads; i++) {
+            Planner planner = new Planner(problem, seed + i);
+            planner.setSweptEdges(sweptEdges);
+            planner.setLazyChecks(lazyChecks);
+            planners.add(planner);
+            running.put(completion.submit(planner), planner);
+        }
+        
+        List<ASVConfig> result = null;
+        try {
+            while (result == null && !running.isEmpty()) {
+                Future<List<ASVConfig>> done = completion.take();
+                Planner planner = running.remove(done);
+                try {
+                    result = done.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("search with seed " 
+                            + planner.getSeed() + " failed", e.getCause());
+                }
+                if (result != null) {
+                    winner = planner;
+                }
+            }
+        } finally {
+            // stop the remaining searches and wait until they have returned,
+            // so that their sample counts are final
+            for (Planner planner: planners) {
+                planner.cancel();
+            }
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return result;
+    }
+    
+    /**
+     * print the seed and sample count of every search, and which one won
+     */
+    public void printReport() {
+        for (int i = 0; i < planners.size(); i++) {
+            Planner planner = planners.get(i);
+            System.out.println(String.format("thread %d: seed %d, samples %d%s", 
+                    i, planner.getSeed(), planner.getSamples(), 
+                    planner == winner? " (winner)" : ""));
+        }
+        if (winner != null) {
+            System.out.println("winning seed: " + winner.getSeed());
+        }
+    }
+    
+    /**
+     * the planner which found the path, or null
+     */
+    public Planner getWinner() {
+        return winner;
+    }
+    
+    /**
+     * the metrics of all the searches added up
+     */
+    public PlannerMetrics getMetrics() {
+        PlannerMetrics metrics = new PlannerMetrics();
+        for (Planner planner: planners) {
+            metrics.add(planner.getMetrics());
+        }
+        return metrics;
+    }
+    
+    public List<Planner> getPlanners() {
+        return planners;
+    }
+}
@@ -0,0 +1,363 @@
+package rrt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * a graph of valid c-space states of one obstacle map, connected by valid
+ * motions; the cost of an edge is the bound of the workspace movement of
+ * its motion. The states are kept as roots of a ConfigTree and indexed by
+ * a KDTree over their base ASVs.
+ *
+ * A roadmap is saved as a little-endian file of a 32-byte header (magic
+ * "ASVR", version, ASV count, node count, map hash, edge count, reserved),
+ * the coordinates of the states, and the edges in compressed row form: the
+ * start offset of each state's edges, then the target and cost of each edge.
+ */
+public class Roadmap {
+    private static final byte[] MAGIC = { 'A', 'S', 'V', 'R' };
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimensions;
+    /** the hash of the obstacle map the roadmap was built for */
+    private final long mapHash;
+    private final ConfigTree states;
+    private final NearestNeighbour index;
+    /** the targets and costs of the edges of each state */
+    private int[][] targets;
+    private double[][] costs;
+    private int[] degree;
+
+    public Roadmap(int dimensions, long mapHash) {
+        this.dimensions = dimensions;
+        this.mapHash = mapHash;
+        states = new ConfigTree(dimensions);
+        index = new KDTree(states);
+        targets = new int[INITIAL_CAPACITY][];
+        costs = new double[INITIAL_CAPACITY][];
+        degree = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * add a state without edges
+     * @return the id of the state
+     */
+    public int add(double[] cfg) {
+        int size = states.size();
+        if (size == degree.length) {
+            int capacity = 2*size;
+            targets = Arrays.copyOf(targets, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+        int id = states.add(new Config(cfg));
+        index.add(id);
+        targets[id] = new int[4];
+        costs[id] = new double[4];
+        return id;
+    }
+
+    /**
+     * add an edge in both directions
+     */
+    public void connect(int a, int b, double cost) {
+        addEdge(a, b, cost);
+        addEdge(b, a, cost);
+    }
+
+    private void addEdge(int from, int to, double cost) {
+        if (degree[from] == targets[from].length) {
+            targets[from] = Arrays.copyOf(targets[from], 2*degree[from]);
+            costs[from] = Arrays.copyOf(costs[from], 2*degree[from]);
+        }
+        targets[from][degree[from]] = to;
+        costs[from][degree[from]] = cost;
+        degree[from]++;
+    }
+
+    public double[] get(int id) {
+        return Arrays.copyOfRange(states.getCoords(), id*dimensions, (id+1)*dimensions);
+    }
+
+    /**
+     * the states whose base ASV is within the radius of the base ASV of the
+     * given coordinates, in no particular order
+     */
+    public int[] near(double[] cfg, double radius) {
+        return index.near(cfg, radius);
+    }
+
+    public int getDegree(int id) {
+        return degree[id];
+    }
+
+    public int size() {
+        return states.size();
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public long getMapHash() {
+        return mapHash;
+    }
+
+    /**
+     * the distance between the base ASVs of a state and the given
+     * coordinates, which is a lower bound of the cost of any path between them
+     */
+    public double getBaseDistance(int id, double[] cfg) {
+        double[] coords = states.getCoords();
+        double dx = coords[id*dimensions] - cfg[0];
+        double dy = coords[id*dimensions+1] - cfg[1];
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    /**
+     * A* search for the cheapest path from a start to a goal which are not
+     * part of the roadmap, given the states each of them connects to
+     * @param startIds, startCosts: the states the start connects to, with
+     * the costs of the motions
+     * @param goal: the coordinates of the goal
+     * @param goalIds, goalCosts: the states connecting to the goal
+     * @return the ids of the states on the cheapest path, or null if the
+     * start and goal aren't connected
+     */
+    public int[] findPath(int[] startIds, double[] startCosts, double[] goal,
+            int[] goalIds, double[] goalCosts) {
+        int size = states.size();
+        double[] goalCost = new double[size];
+        Arrays.fill(goalCost, Double.POSITIVE_INFINITY);
+        for (int i = 0; i < goalIds.length; i++) {
+            goalCost[goalIds[i]] = Math.min(goalCost[goalIds[i]], goalCosts[i]);
+        }
+        double[] cost = new double[size];
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        int[] previous = new int[size];
+        PriorityQueue<Entry> open = new PriorityQueue<Entry>();
+        for (int i = 0; i < startIds.length; i++) {
+            int id = startIds[i];
+            if (startCosts[i] < cost[id]) {
+                cost[id] = startCosts[i];
+                previous[id] = -1;
+                open.add(new Entry(id, cost[id] + getBaseDistance(id, goal)));
+            }
+        }
+
+        double best = Double.POSITIVE_INFINITY;
+        int last = -1;
+        while (!open.isEmpty()) {
+            Entry entry = open.poll();
+            if (entry.estimate >= best) {
+                // no cheaper path is left
+                break;
+            }
+            int id = entry.id;
+            if (entry.estimate > cost[id] + getBaseDistance(id, goal)) {
+                // outdated entry
+                continue;
+            }
+            if (cost[id] + goalCost[id] < best) {
+                best = cost[id] + goalCost[id];
+                last = id;
+            }
+            for (int i = 0; i < degree[id]; i++) {
+                int next = targets[id][i];
+                double nextCost = cost[id] + costs[id][i];
+                if (nextCost < cost[next]) {
+                    cost[next] = nextCost;
+                    previous[next] = id;
+                    open.add(new Entry(next, nextCost + getBaseDistance(next, goal)));
+                }
+            }
+        }
+        if (last < 0) {
+            return null;
+        }
+        List<Integer> path = new ArrayList<Integer>();
+        for (int id = last; id >= 0; id = previous[id]) {
+            path.add(id);
+        }
+        Collections.reverse(path);
+        int[] result = new int[path.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = path.get(i);
+        }
+        return result;
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        private int id;
+        /** the cost so far plus the lower bound of the rest */
+        private double estimate;
+
+        public Entry(int id, double estimate) {
+            this.id = id;
+            this.estimate = estimate;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Double.compare(estimate, other.estimate);
+        }
+    }
+
+    /**
+     * write the roadmap to a file. The file is written and synced under a
+     * unique temporary name in the same directory first, so that readers
+     * never see a partial roadmap
+     */
+    public void save(File file) throws IOException {
+        int size = states.size();
+        int edges = 0;
+        for (int i = 0; i < size; i++) {
+            edges += degree[i];
+        }
+        long length = HEADER_SIZE + 8L*size*dimensions + 4L*(size + 1) + 12L*edges;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Roadmap is too large to save.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(dimensions - 1);
+        buffer.putInt(size);
+        buffer.putLong(mapHash);
+        buffer.putInt(edges);
+        buffer.putInt(0);
+        buffer.asDoubleBuffer().put(states.getCoords(), 0, size*dimensions);
+        buffer.position(buffer.position() + 8*size*dimensions);
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            buffer.putInt(offset);
+            offset += degree[i];
+        }
+        buffer.putInt(offset);
+        for (int i = 0; i < size; i++) {
+            buffer.asIntBuffer().put(targets[i], 0, degree[i]);
+            buffer.position(buffer.position() + 4*degree[i]);
+        }
+        for (int i = 0; i < size; i++) {
+            buffer.asDoubleBuffer().put(costs[i], 0, degree[i]);
+            buffer.position(buffer.position() + 8*degree[i]);
+        }
+        buffer.flip();
+
+        Path target = file.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        boolean moved = false;
+        try {
+            FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE);
+            try {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            } finally {
+                out.close();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * read a roadmap from a file
+     * @return the roadmap, or null if the file doesn't exist, is corrupt or
+     * holds a roadmap for a different map or number of ASVs
+     */
+    public static Roadmap load(File file, int asvCount, long mapHash) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (buffer.get() != MAGIC[i]) {
+                    return null;
+                }
+            }
+            if (buffer.getInt() != VERSION || buffer.getInt() != asvCount) {
+                return null;
+            }
+            int size = buffer.getInt();
+            if (buffer.getLong() != mapHash) {
+                return null;
+            }
+            int edges = buffer.getInt();
+            buffer.getInt();
+            int dimensions = asvCount + 1;
+            if (size < 0 || edges < 0
+                    || length != HEADER_SIZE + 8L*size*dimensions + 4L*(size + 1) + 12L*edges) {
+                // a corrupt roadmap is built again
+                return null;
+            }
+
+            double[] coords = new double[size*dimensions];
+            buffer.asDoubleBuffer().get(coords);
+            buffer.position(buffer.position() + 8*size*dimensions);
+            int[] offsets = new int[size + 1];
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + 4*(size + 1));
+            int[] allTargets = new int[edges];
+            buffer.asIntBuffer().get(allTargets);
+            buffer.position(buffer.position() + 4*edges);
+            double[] allCosts = new double[edges];
+            buffer.asDoubleBuffer().get(allCosts);
+            if (offsets[0] != 0 || offsets[size] != edges) {
+                return null;
+            }
+            for (int i = 0; i < size; i++) {
+                if (offsets[i + 1] < offsets[i]) {
+                    return null;
+                }
+            }
+            for (int target : allTargets) {
+                if (target < 0 || target >= size) {
+                    return null;
+                }
+            }
+
+            Roadmap roadmap = new Roadmap(dimensions, mapHash);
+            for (int i = 0; i < size; i++) {
+                roadmap.add(Arrays.copyOfRange(coords, i*dimensions, (i+1)*dimensions));
+            }
+            for (int i = 0; i < size; i++) {
+                int count = offsets[i + 1] - offsets[i];
+                // keep room for the edges of states added later
+                roadmap.targets[i] = Arrays.copyOfRange(allTargets, offsets[i], offsets[i] + count + 4);
+                roadmap.costs[i] = Arrays.copyOfRange(allCosts, offsets[i], offsets[i] + count + 4);
+                roadmap.degree[i] = count;
+            }
+            return roadmap;
+        } finally {
+            channel.close();
+        }
+    }
+}
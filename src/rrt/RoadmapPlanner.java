@@ -0,0 +1,213 @@
+package rrt;
+
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a probabilistic roadmap planner for answering many queries in the same
+ * obstacle map. The roadmap is built from the valid states drawn by a
+ * Planner and saved in a directory, keyed by the hash of the obstacles and
+ * the number of ASVs; later queries load it and only connect their initial
+ * and goal states before an A* search. If they can't be connected, more
+ * states are added and the grown roadmap is saved.
+ */
+public class RoadmapPlanner {
+    /** the number of states of a new roadmap */
+    private static final int INITIAL_NODES = 1000;
+    /** how often the roadmap is grown for a query before giving up */
+    private static final int MAX_ROUNDS = 4;
+    /** the number of nearest states each new state tries to connect to */
+    private static final int NEIGHBOURS = 10;
+    /** the number of nearest states the initial and goal states try */
+    private static final int QUERY_NEIGHBOURS = 30;
+    /** the longest motion tried, as a bound of the workspace movement */
+    private static final double MAX_EDGE = 0.1;
+
+    private ProblemSpec problem;
+    private File directory;
+    private long seed;
+
+    /** provides the samples and checks; its problem is the query */
+    private Planner planner;
+    private Roadmap roadmap;
+
+    /**
+     * @param problem: a loaded problem, which is left unchanged
+     * @param directory: where roadmaps are kept, created if missing
+     * @param seed: the seed of the samples added to the roadmap
+     */
+    public RoadmapPlanner(ProblemSpec problem, File directory, long seed) {
+        this.problem = problem;
+        this.directory = directory;
+        this.seed = seed;
+    }
+
+    /**
+     * answer the query of the problem, building or growing the roadmap as needed
+     * @return the states of the path, or null if none was found
+     */
+    public List<ASVConfig> plan() throws IOException {
+        planner = new Planner(problem, seed);
+        int asvCount = problem.getASVCount();
+        long mapHash = getMapHash(problem);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create roadmap directory " + directory);
+        }
+        File file = new File(directory, String.format("roadmap-%016x-%d.bin", mapHash, asvCount));
+        roadmap = Roadmap.load(file, asvCount, mapHash);
+        if (roadmap == null) {
+            roadmap = new Roadmap(asvCount + 1, mapHash);
+            grow(INITIAL_NODES);
+            roadmap.save(file);
+        }
+
+        for (int round = 0; ; round++) {
+            List<ASVConfig> path = query();
+            if (path != null || round == MAX_ROUNDS) {
+                return path;
+            }
+            // densify the roadmap and try again
+            grow(Math.max(roadmap.size(), INITIAL_NODES));
+            roadmap.save(file);
+        }
+    }
+
+    /**
+     * the metrics of the planner which draws and checks the roadmap states
+     */
+    public PlannerMetrics getMetrics() {
+        return planner.getMetrics();
+    }
+
+    public Roadmap getRoadmap() {
+        return roadmap;
+    }
+
+    /**
+     * a hash of the obstacles of a problem, identifying its map
+     */
+    public static long getMapHash(ProblemSpec problem) {
+        // 64-bit FNV-1a over the bits of the rectangles
+        long hash = 0xcbf29ce484222325L;
+        for (Obstacle o : problem.getObstacles()) {
+            Rectangle2D rect = o.getRect();
+            double[] values = { rect.getX(), rect.getY(), rect.getWidth(), rect.getHeight() };
+            for (double value : values) {
+                hash ^= Double.doubleToLongBits(value);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /*
+     * connect the initial and goal states to the roadmap and search the
+     * cheapest path between them
+     */
+    private List<ASVConfig> query() {
+        double[] init = planner.getInitConfig().coords;
+        double[] goal = planner.getGoalConfig().coords;
+        List<double[]> configs = new ArrayList<double[]>();
+        if (Planner.getMoveBound(init, goal) <= MAX_EDGE && planner.isValidEdge(init, goal)) {
+            configs.add(init);
+            configs.add(goal);
+            return planner.densify(configs);
+        }
+
+        int[] startIds = connect(init, QUERY_NEIGHBOURS);
+        int[] goalIds = connect(goal, QUERY_NEIGHBOURS);
+        int[] path = roadmap.findPath(startIds, getCosts(init, startIds), goal,
+                goalIds, getCosts(goal, goalIds));
+        if (path == null) {
+            return null;
+        }
+        configs.add(init);
+        for (int id : path) {
+            configs.add(roadmap.get(id));
+        }
+        configs.add(goal);
+        return planner.densify(configs);
+    }
+
+    /*
+     * add states drawn by the planner, connecting each to its nearest states
+     */
+    private void grow(int count) {
+        for (int i = 0; i < count; i++) {
+            Config sample = planner.sample();
+            while (!planner.isValid(sample)) {
+                sample = planner.sample();
+            }
+            int[] neighbours = connect(sample.coords, NEIGHBOURS);
+            int id = roadmap.add(sample.coords);
+            for (int neighbour : neighbours) {
+                roadmap.connect(id, neighbour, Planner.getMoveBound(sample.coords, roadmap.get(neighbour)));
+            }
+        }
+    }
+
+    /*
+     * the states among the nearest count states of the roadmap which the
+     * given state has a valid motion to
+     */
+    private int[] connect(double[] cfg, int count) {
+        int[] nearest = findNearest(cfg, count);
+        int[] connected = new int[nearest.length];
+        int size = 0;
+        for (int id : nearest) {
+            if (planner.isValidEdge(cfg, roadmap.get(id))) {
+                connected[size++] = id;
+            }
+        }
+        return Arrays.copyOf(connected, size);
+    }
+
+    private double[] getCosts(double[] cfg, int[] ids) {
+        double[] costs = new double[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            costs[i] = Planner.getMoveBound(cfg, roadmap.get(ids[i]));
+        }
+        return costs;
+    }
+
+    /*
+     * the states with the smallest movement bound from the given one, within
+     * MAX_EDGE and of the same orientation, nearest first. The distance of
+     * the base ASVs is a lower bound of the movement, so only the states the
+     * index finds within MAX_EDGE of the base ASV are candidates
+     */
+    private int[] findNearest(double[] cfg, int count) {
+        int[] ids = new int[count];
+        double[] bounds = new double[count];
+        int size = 0;
+        for (int id : roadmap.near(cfg, MAX_EDGE)) {
+            double limit = size == count? bounds[size - 1] : MAX_EDGE;
+            if (roadmap.getBaseDistance(id, cfg) > limit) {
+                continue;
+            }
+            double[] other = roadmap.get(id);
+            if (cfg.length > 3 && (other[3] < 0) != (cfg[3] < 0)) {
+                // states of opposite orientations aren't connected by convex states
+                continue;
+            }
+            double bound = Planner.getMoveBound(cfg, other);
+            if (bound > limit) {
+                continue;
+            }
+            // insert in order, dropping the farthest if full
+            int i = size < count? size++ : count - 1;
+            while (i > 0 && bounds[i - 1] > bound) {
+                ids[i] = ids[i - 1];
+                bounds[i] = bounds[i - 1];
+                i--;
+            }
+            ids[i] = id;
+            bounds[i] = bound;
+        }
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -0,0 +1,40 @@
+package rrt;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * a JFR event of one finished search of a planner, with its counters
+ */
+@Name("rrt.Search")
+@Label("Planner Search")
+@Category("RRT Planner")
+class SearchEvent extends Event {
+    @Label("Seed")
+    long seed;
+
+    @Label("Path Found")
+    boolean found;
+
+    @Label("Samples")
+    long samples;
+
+    @Label("Nearest Queries")
+    long nearestQueries;
+
+    @Label("State Checks")
+    long stateChecks;
+
+    @Label("Extensions")
+    long extensions;
+
+    @Label("Recursions")
+    long recursions;
+
+    @Label("Search Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long searchNanos;
+}
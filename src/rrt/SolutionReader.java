@@ -0,0 +1,147 @@
+package rrt;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the states of a solution file one at a time, so that paths of any
+ * length can be processed without holding them in memory. Both solution text
+ * files and binary solution files are accepted.
+ */
+public class SolutionReader {
+	/** The number of ASVs in each state */
+	private int asvCount;
+	/** The number of states in the solution */
+	private long stateCount;
+	/** The number of states read so far */
+	private long statesRead = 0;
+	/** The cost given in the solution file */
+	private double cost;
+
+	/** The text file being read, if any */
+	private InputStream input;
+	private TextTokenizer tokens;
+	/** The binary file being read, if any */
+	private BinarySolution binary;
+	private double[] coords;
+
+	/**
+	 * Opens a solution file and reads its header.
+	 * 
+	 * @param filename
+	 *            the path of the solution file.
+	 * @param asvCount
+	 *            the number of ASVs of the problem.
+	 * @throws IOException
+	 *             if the file can't be read or its header is invalid.
+	 */
+	public SolutionReader(String filename, int asvCount) throws IOException {
+		this.asvCount = asvCount;
+		if (BinarySolution.isBinary(filename)) {
+			binary = BinarySolution.load(filename);
+			if (binary.getASVCount() != asvCount) {
+				throw new IOException(String.format(
+						"Solution has %d ASVs, but the problem has %d",
+						binary.getASVCount(), asvCount));
+			}
+			stateCount = binary.getStateCount();
+			cost = binary.getCost();
+			coords = new double[asvCount * 2];
+			return;
+		}
+		input = new FileInputStream(filename);
+		tokens = new TextTokenizer(input);
+		try {
+			ProblemSpec.nextLine(tokens);
+			stateCount = tokens.nextInt() + 1;
+			cost = tokens.nextDouble();
+		} catch (RuntimeException e) {
+			input.close();
+			throw translate(e);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of states given by the header.
+	 * 
+	 * @return the number of states in the solution.
+	 */
+	public long getStateCount() {
+		return stateCount;
+	}
+
+	/**
+	 * Returns the cost given by the header.
+	 * 
+	 * @return the cost given in the solution file.
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * Returns whether there are more states to read.
+	 * 
+	 * @return whether there are more states to read.
+	 */
+	public boolean hasNext() {
+		return statesRead < stateCount;
+	}
+
+	/**
+	 * Reads the next state.
+	 * 
+	 * @return the next state of the solution.
+	 * @throws IOException
+	 *             if the state is missing or invalid.
+	 */
+	public ASVConfig next() throws IOException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		statesRead++;
+		if (binary != null) {
+			binary.getCoords(statesRead - 1, coords);
+			return new ASVConfig(coords);
+		}
+		try {
+			ProblemSpec.nextLine(tokens);
+			return new ASVConfig(asvCount, tokens);
+		} catch (RuntimeException e) {
+			throw translate(e);
+		}
+	}
+
+	/**
+	 * Closes the file.
+	 * 
+	 * @throws IOException
+	 *             if the file cannot be closed.
+	 */
+	public void close() throws IOException {
+		if (input != null) {
+			input.close();
+		}
+	}
+
+	/**
+	 * Converts a parsing exception into an IOException giving the line number.
+	 */
+	private IOException translate(RuntimeException e) {
+		if (e instanceof InputMismatchException) {
+			return new IOException(String.format(
+					"Invalid number format on line %d: %s",
+					tokens.getLineNumber(), e.getMessage()));
+		} else if (e instanceof NoSuchElementException) {
+			return new IOException(String.format(
+					"Not enough tokens on line %d", tokens.getLineNumber()));
+		}
+		throw e;
+	}
+}
@@ -0,0 +1,187 @@
+package rrt;
+
+import java.awt.geom.Point2D;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes solution text files in the format read by ProblemSpec.loadSolution:
+ * a line with the number of steps and the cost, then one line of space-
+ * separated ASV coordinates per state.
+ * 
+ * Numbers are formatted into a reusable buffer, which is written to the file
+ * in large blocks; no String is created per coordinate.
+ */
+public class SolutionWriter {
+	/** The size of the output buffer in bytes */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** The number of fractional digits written for a coordinate */
+	private static final int DIGITS = 15;
+	private static final double SCALE = 1e15;
+	private static final long SCALE_UNITS = 1000000000000000L;
+	/** Numbers this large or larger are written with Double.toString */
+	private static final double FIXED_POINT_LIMIT = 1000;
+
+	private OutputStream output;
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+	/** Holds the digits of a number while it is formatted */
+	private byte[] digits = new byte[20];
+
+	/**
+	 * Opens the given file for writing, replacing its contents.
+	 * 
+	 * @param filename
+	 *            the path of the text file to write.
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	public SolutionWriter(String filename) throws IOException {
+		this.output = new FileOutputStream(filename);
+	}
+
+	/**
+	 * Writes a whole solution and closes the file.
+	 * 
+	 * @param path
+	 *            the states of the solution.
+	 * @param cost
+	 *            the cost of the solution.
+	 * @throws IOException
+	 *             if the file cannot be written.
+	 */
+	public void write(List<ASVConfig> path, double cost) throws IOException {
+		try {
+			writeHeader(path.size() - 1, cost);
+			for (ASVConfig cfg : path) {
+				writeState(cfg);
+			}
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Writes the first line of the file.
+	 * 
+	 * @param steps
+	 *            the number of steps, i.e. the number of states minus one.
+	 * @param cost
+	 *            the cost of the solution.
+	 */
+	public void writeHeader(int steps, double cost) throws IOException {
+		writeLong(steps);
+		write(' ');
+		writeDouble(cost);
+		write('\n');
+	}
+
+	/**
+	 * Writes the coordinates of a state as one line.
+	 * 
+	 * @param cfg
+	 *            the state to write.
+	 */
+	public void writeState(ASVConfig cfg) throws IOException {
+		List<Point2D> points = cfg.asvPositions;
+		for (int i = 0; i < points.size(); i++) {
+			if (i > 0) {
+				write(' ');
+			}
+			writeDouble(points.get(i).getX());
+			write(' ');
+			writeDouble(points.get(i).getY());
+		}
+		write('\n');
+	}
+
+	/**
+	 * Writes out the buffered text and closes the file.
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			output.close();
+		}
+	}
+
+	private void flush() throws IOException {
+		output.write(buffer, 0, position);
+		position = 0;
+	}
+
+	private void write(char c) throws IOException {
+		ensureCapacity(1);
+		buffer[position++] = (byte) c;
+	}
+
+	/*
+	 * make room for at least n bytes in the buffer
+	 */
+	private void ensureCapacity(int n) throws IOException {
+		if (buffer.length - position < n) {
+			flush();
+		}
+	}
+
+	private void writeLong(long value) throws IOException {
+		ensureCapacity(20);
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		writeDigits(value);
+	}
+
+	/*
+	 * the buffer must have room for the digits
+	 */
+	private void writeDigits(long value) {
+		int n = 0;
+		do {
+			digits[n++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		while (n > 0) {
+			buffer[position++] = digits[--n];
+		}
+	}
+
+	/*
+	 * fixed point with up to 15 fractional digits, trailing zeros omitted
+	 */
+	private void writeDouble(double value) throws IOException {
+		if (!(Math.abs(value) < FIXED_POINT_LIMIT)) {
+			// also covers NaN and infinity
+			String s = Double.toString(value);
+			for (int i = 0; i < s.length(); i++) {
+				write(s.charAt(i));
+			}
+			return;
+		}
+		ensureCapacity(DIGITS + 6);
+		long units = Math.round(Math.abs(value) * SCALE);
+		if (value < 0 && units > 0) {
+			buffer[position++] = '-';
+		}
+		long whole = units / SCALE_UNITS;
+		long fraction = units - whole * SCALE_UNITS;
+		writeDigits(whole);
+		if (fraction == 0) {
+			return;
+		}
+		buffer[position] = '.';
+		int end = position + DIGITS + 1;
+		for (int i = end - 1; i > position; i--) {
+			buffer[i] = (byte) ('0' + fraction % 10);
+			fraction /= 10;
+		}
+		while (buffer[end - 1] == '0') {
+			end--;
+		}
+		position = end;
+	}
+}
@@ -54,6 +54,14 @@ public class Test {
     private double maxError;
     /** The workspace bounds, with allowable error. */
     private Rectangle2D lenientBounds;
+    /** The grid the lenient obstacle rectangles were computed for */
+    private ObstacleGrid lenientGrid;
+    /** The obstacles of lenientGrid, shrunk by the maximum error */
+    private Rectangle2D[] lenientRects;
+    /** Buffer for the obstacles found by grid queries */
+    private int[] candidates;
+    /** Scratch rectangle for the grown obstacles of the swept checks */
+    private Rectangle2D inflated = new Rectangle2D.Double();
 
     /**
      * Constructor. Creates a Tester with the default value for maximum error.
@@ -64,6 +72,18 @@ public class Test {
         this.ps.loadProblem(fileName);
     }
 
+    /**
+     * Constructor. Creates a Tester with the default value for maximum error
+     * over an already loaded problem.
+     *
+     * @param ps
+     *            the problem to test against.
+     */
+    public Test(ProblemSpec ps) {
+        this(DEFAULT_MAX_ERROR);
+        this.ps = ps;
+    }
+
     /**
      * Constructor. Creates a Tester with the given maximum error.
      *
@@ -252,6 +272,42 @@ public class Test {
         return false;
     }
 
+    /**
+     * Returns whether the given config collides with any obstacle of the
+     * loaded problem.
+     *
+     * @param cfg
+     *            the configuration to test.
+     * @return whether the given config collides with any obstacle.
+     */
+    public boolean hasCollision(ASVConfig cfg) {
+        return hasCollision(cfg, ps.getObstacleGrid());
+    }
+
+    /**
+     * Returns whether the given config collides with any of the obstacles in
+     * the given grid. Only the obstacles near each boom are tested.
+     *
+     * @param cfg
+     *            the configuration to test.
+     * @param grid
+     *            the spatial index over the obstacles to test against.
+     * @return whether the given config collides with any of the obstacles.
+     */
+    public boolean hasCollision(ASVConfig cfg, ObstacleGrid grid) {
+        Rectangle2D[] lenientRects = getLenientRects(grid);
+        List<Point2D> points = cfg.asvPositions;
+        for (int i = 1; i < points.size(); i++) {
+            Point2D p0 = points.get(i - 1);
+            Point2D p1 = points.get(i);
+            if (hasCollision(p0.getX(), p0.getY(), p1.getX(), p1.getY(),
+                    grid, lenientRects)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns whether the given config collides with the given obstacle.
      *
@@ -273,6 +329,202 @@ public class Test {
         return false;
     }
 
+    /*
+     * The following predicates give the same verdicts as the ones above, but
+     * work directly on the x- and y-coordinates of the first n ASVs stored
+     * interleaved in an array, and allocate nothing.
+     */
+
+    /**
+     * Returns whether the given configuration is convex.
+     *
+     * @param xy
+     *            the coordinates of the ASVs.
+     * @param n
+     *            the number of ASVs to test.
+     * @return whether the given configuration is convex.
+     */
+    public boolean isConvex(double[] xy, int n) {
+        double requiredSign = 0;
+        double totalTurned = 0;
+        double x1 = xy[2], y1 = xy[3];
+        double angle = Math.atan2(y1 - xy[1], x1 - xy[0]);
+        for (int i = 2; i < n + 2; i++) {
+            int j = i % n;
+            double x2 = xy[2 * j], y2 = xy[2 * j + 1];
+            double nextAngle = Math.atan2(y2 - y1, x2 - x1);
+            double turningAngle = normaliseAngle(nextAngle - angle);
+
+            if (turningAngle == Math.PI) {
+                return false;
+            }
+
+            totalTurned += Math.abs(turningAngle);
+            if (totalTurned > 3 * Math.PI) {
+                return false;
+            }
+
+            double turnSign;
+            if (turningAngle < -maxError) {
+                turnSign = -1;
+            } else if (turningAngle > maxError) {
+                turnSign = 1;
+            } else {
+                turnSign = 0;
+            }
+
+            if (turnSign * requiredSign < 0) {
+                return false;
+            } else if (turnSign != 0) {
+                requiredSign = turnSign;
+            }
+
+            x1 = x2;
+            y1 = y2;
+            angle = nextAngle;
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given configuration has sufficient area.
+     *
+     * @param xy
+     *            the coordinates of the ASVs.
+     * @param n
+     *            the number of ASVs to test.
+     * @return whether the given configuration has sufficient area.
+     */
+    public boolean hasEnoughArea(double[] xy, int n) {
+        double total = 0;
+        for (int i = 1; i < n + 1; i++) {
+            int j = i % n;
+            int next = (i + 1) % n;
+            total += xy[2 * j] * (xy[2 * next + 1] - xy[2 * (i - 1) + 1]);
+        }
+        double area = Math.abs(total) / 2;
+        return (area >= getMinimumArea(n) - maxError);
+    }
+
+    /**
+     * Returns whether the given configuration fits wholly within the bounds.
+     *
+     * @param xy
+     *            the coordinates of the ASVs.
+     * @param n
+     *            the number of ASVs to test.
+     * @return whether the given configuration fits wholly within the bounds.
+     */
+    public boolean fitsBounds(double[] xy, int n) {
+        for (int i = 0; i < n; i++) {
+            if (!lenientBounds.contains(xy[2 * i], xy[2 * i + 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the given configuration collides with any obstacle of
+     * the loaded problem.
+     *
+     * @param xy
+     *            the coordinates of the ASVs.
+     * @param n
+     *            the number of ASVs to test.
+     * @return whether the given configuration collides with any obstacle.
+     */
+    public boolean hasCollision(double[] xy, int n) {
+        ObstacleGrid grid = ps.getObstacleGrid();
+        Rectangle2D[] lenientRects = getLenientRects(grid);
+        for (int i = 1; i < n; i++) {
+            if (hasCollision(xy[2 * i - 2], xy[2 * i - 1], xy[2 * i],
+                    xy[2 * i + 1], grid, lenientRects)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * whether the boom from (x0, y0) to (x1, y1) hits any obstacle near it
+     */
+    private boolean hasCollision(double x0, double y0, double x1, double y1,
+            ObstacleGrid grid, Rectangle2D[] lenientRects) {
+        int n = grid.query(Math.min(x0, x1), Math.min(y0, y1),
+                Math.max(x0, x1), Math.max(y0, y1), candidates);
+        for (int j = 0; j < n; j++) {
+            if (lenientRects[candidates[j]].intersectsLine(x0, y0, x1, y1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the given configuration could collide with an obstacle
+     * or leave the bounds if every ASV was moved by up to the given radius.
+     * When this is false, every configuration within that distance is known
+     * to be free of collisions and within the bounds.
+     *
+     * @param xy
+     *            the coordinates of the ASVs.
+     * @param n
+     *            the number of ASVs to test.
+     * @param radius
+     *            how far each ASV may be moved.
+     * @return whether a configuration near the given one may be invalid.
+     */
+    public boolean mayCollide(double[] xy, int n, double radius) {
+        for (int i = 0; i < n; i++) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            if (x - radius < lenientBounds.getMinX()
+                    || x + radius >= lenientBounds.getMaxX()
+                    || y - radius < lenientBounds.getMinY()
+                    || y + radius >= lenientBounds.getMaxY()) {
+                return true;
+            }
+        }
+        ObstacleGrid grid = ps.getObstacleGrid();
+        Rectangle2D[] lenientRects = getLenientRects(grid);
+        for (int i = 1; i < n; i++) {
+            double x0 = xy[2 * i - 2], y0 = xy[2 * i - 1];
+            double x1 = xy[2 * i], y1 = xy[2 * i + 1];
+            // a boom whose ends move by up to radius stays within radius of
+            // its original position, so it is tested against the grown
+            // rectangles; growing them square is conservative at the corners
+            int count = grid.query(Math.min(x0, x1) - radius,
+                    Math.min(y0, y1) - radius, Math.max(x0, x1) + radius,
+                    Math.max(y0, y1) + radius, candidates);
+            for (int j = 0; j < count; j++) {
+                Rectangle2D rect = lenientRects[candidates[j]];
+                inflated.setRect(rect.getX() - radius, rect.getY() - radius,
+                        rect.getWidth() + 2 * radius, rect.getHeight() + 2
+                                * radius);
+                if (inflated.intersectsLine(x0, y0, x1, y1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * the obstacles of the grid shrunk by the maximum error, computed once per
+     * grid
+     */
+    private Rectangle2D[] getLenientRects(ObstacleGrid grid) {
+        if (grid != lenientGrid) {
+            lenientRects = new Rectangle2D[grid.size()];
+            for (int i = 0; i < grid.size(); i++) {
+                lenientRects[i] = grow(grid.getObstacle(i).getRect(), -maxError);
+            }
+            candidates = new int[grid.size()];
+            lenientGrid = grid;
+        }
+        return lenientRects;
+    }
+
     /**
      * Checks that the total cost of the solution is correctly calculated.
      */
@@ -0,0 +1,308 @@
+package rrt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * A line-oriented tokenizer for the problem and solution text files. Numbers
+ * are parsed straight from the bytes of the input, without going through
+ * intermediate Strings or regular expressions.
+ * 
+ * Like reading each line and scanning it with a Scanner, tokens are only read
+ * from the current line and any tokens left on a line are skipped by
+ * nextLine(). The same runtime exceptions as Scanner are thrown for a missing
+ * (NoSuchElementException) or malformed (InputMismatchException) token.
+ */
+public class TextTokenizer {
+	/** Exact powers of ten, for the fast path of parsing doubles */
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	/** Doubles represent every integer below this exactly */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/** The source of the bytes, or null once it is exhausted */
+	private InputStream input;
+	private byte[] buffer;
+	private int pos;
+	private int limit;
+
+	/** The bytes of the last token */
+	private byte[] token = new byte[32];
+	private int tokenLength;
+
+	/** The number of the current line, starting from 1 */
+	private int lineNo = 0;
+	/** Whether the terminator of the current line is yet to be consumed */
+	private boolean inLine = false;
+
+	/**
+	 * Constructs a tokenizer reading from the given stream.
+	 * 
+	 * @param input
+	 *            the stream to read; it is not closed by the tokenizer.
+	 */
+	public TextTokenizer(InputStream input) {
+		this.input = input;
+		this.buffer = new byte[1 << 16];
+	}
+
+	/**
+	 * Constructs a tokenizer positioned on a single line of text.
+	 * 
+	 * @param line
+	 *            the text to read.
+	 */
+	public TextTokenizer(String line) {
+		this.buffer = line.getBytes(StandardCharsets.ISO_8859_1);
+		this.limit = buffer.length;
+		this.lineNo = 1;
+		this.inLine = true;
+	}
+
+	/**
+	 * Returns the number of the current line, starting from 1.
+	 * 
+	 * @return the number of the current line.
+	 */
+	public int getLineNumber() {
+		return lineNo;
+	}
+
+	/**
+	 * Skips the rest of the current line and moves to the next one.
+	 * 
+	 * @return false if the input has no more lines.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	public boolean nextLine() throws IOException {
+		if (inLine) {
+			int b = peek();
+			while (b >= 0 && b != '\n' && b != '\r') {
+				pos++;
+				b = peek();
+			}
+			if (b == '\r') {
+				pos++;
+				b = peek();
+			}
+			if (b == '\n') {
+				pos++;
+			}
+			inLine = false;
+		}
+		if (peek() < 0) {
+			return false;
+		}
+		lineNo++;
+		inLine = true;
+		return true;
+	}
+
+	/**
+	 * Reads the next token of the current line as an int.
+	 * 
+	 * @return the parsed value.
+	 * @throws NoSuchElementException
+	 *             if the current line has no more tokens.
+	 * @throws InputMismatchException
+	 *             if the token is not an int.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	public int nextInt() throws IOException {
+		readToken();
+		int i = 0;
+		boolean negative = false;
+		if (token[0] == '-' || token[0] == '+') {
+			negative = token[0] == '-';
+			i++;
+		}
+		if (i == tokenLength) {
+			throw mismatch();
+		}
+		long value = 0;
+		for (; i < tokenLength; i++) {
+			int digit = token[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw mismatch();
+			}
+			value = value * 10 + digit;
+			if (value > (long) Integer.MAX_VALUE + 1) {
+				throw mismatch();
+			}
+		}
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw mismatch();
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Reads the next token of the current line as a double.
+	 * 
+	 * Plain decimal numbers with at most 15 or so significant digits are
+	 * converted with a single exact division or multiplication by a power of
+	 * ten, which rounds correctly; anything else falls back to
+	 * Double.parseDouble, so the result always equals that of the standard
+	 * library.
+	 * 
+	 * @return the parsed value.
+	 * @throws NoSuchElementException
+	 *             if the current line has no more tokens.
+	 * @throws InputMismatchException
+	 *             if the token is not a number.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	public double nextDouble() throws IOException {
+		readToken();
+		int i = 0;
+		boolean negative = false;
+		if (token[0] == '-' || token[0] == '+') {
+			negative = token[0] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		boolean point = false;
+		for (; i < tokenLength; i++) {
+			byte b = token[i];
+			if (b >= '0' && b <= '9') {
+				if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+					return parseSlowly();
+				}
+				mantissa = mantissa * 10 + (b - '0');
+				digits++;
+				if (point) {
+					exponent--;
+				}
+			} else if (b == '.' && !point) {
+				point = true;
+			} else {
+				break;
+			}
+		}
+		if (digits == 0) {
+			return parseSlowly();
+		}
+		if (i < tokenLength) {
+			if (token[i] != 'e' && token[i] != 'E') {
+				return parseSlowly();
+			}
+			i++;
+			boolean negativeExponent = false;
+			if (i < tokenLength && (token[i] == '-' || token[i] == '+')) {
+				negativeExponent = token[i] == '-';
+				i++;
+			}
+			if (i == tokenLength || tokenLength - i > 3) {
+				return parseSlowly();
+			}
+			int e = 0;
+			for (; i < tokenLength; i++) {
+				int digit = token[i] - '0';
+				if (digit < 0 || digit > 9) {
+					return parseSlowly();
+				}
+				e = e * 10 + digit;
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exponent < -22 || exponent > 22) {
+			return parseSlowly();
+		} else if (exponent < 0) {
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			value = mantissa * POWERS_OF_TEN[exponent];
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the current token with Double.parseDouble.
+	 */
+	private double parseSlowly() {
+		String str = tokenString();
+		// parseDouble also accepts hexadecimal and type suffixes, which a
+		// Scanner would reject
+		char last = Character.toLowerCase(str.charAt(str.length() - 1));
+		if (str.indexOf('x') >= 0 || str.indexOf('X') >= 0 || last == 'd'
+				|| last == 'f') {
+			throw mismatch();
+		}
+		try {
+			return Double.parseDouble(str);
+		} catch (NumberFormatException e) {
+			throw mismatch();
+		}
+	}
+
+	private InputMismatchException mismatch() {
+		return new InputMismatchException(String.format(
+				"For input string: \"%s\"", tokenString()));
+	}
+
+	private String tokenString() {
+		return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Reads the next whitespace-separated token of the current line into
+	 * token.
+	 */
+	private void readToken() throws IOException {
+		int b = peek();
+		while (inLine && b >= 0 && b <= ' ' && b != '\n' && b != '\r') {
+			pos++;
+			b = peek();
+		}
+		if (!inLine || b < 0 || b == '\n' || b == '\r') {
+			throw new NoSuchElementException();
+		}
+		tokenLength = 0;
+		while (b > ' ') {
+			if (tokenLength == token.length) {
+				byte[] grown = new byte[token.length * 2];
+				System.arraycopy(token, 0, grown, 0, tokenLength);
+				token = grown;
+			}
+			token[tokenLength++] = (byte) b;
+			pos++;
+			b = peek();
+		}
+	}
+
+	/**
+	 * Returns the next byte without consuming it, or -1 at the end of the
+	 * input.
+	 */
+	private int peek() throws IOException {
+		if (pos < limit) {
+			return buffer[pos] & 0xff;
+		}
+		if (input == null) {
+			return -1;
+		}
+		pos = 0;
+		limit = 0;
+		while (limit == 0) {
+			limit = input.read(buffer);
+			if (limit < 0) {
+				limit = 0;
+				input = null;
+				return -1;
+			}
+		}
+		return buffer[0] & 0xff;
+	}
+}
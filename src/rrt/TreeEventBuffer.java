@@ -0,0 +1,169 @@
+package rrt;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a bounded ring buffer of the states added to the trees of one planner,
+ * written by the planner thread and read by one other thread, without locks.
+ *
+ * The planner never waits: when the reader falls behind by more than the
+ * capacity, the oldest events are overwritten and the reader skips them,
+ * counting them as lost. Every event holds the base position of the state;
+ * every fullPeriod-th event also holds all of its c-space coordinates.
+ *
+ * Each event is written between two sequence numbers: claimed is raised
+ * before its slot is written and published after. A reader copies an event
+ * and then checks that claimed hasn't reached its slot again, like a
+ * sequence lock, so it never returns an event torn by an overwrite.
+ */
+public class TreeEventBuffer {
+    /** the tree of an event */
+    public static final int INITIAL_TREE = 0;
+    public static final int GOAL_TREE = 1;
+
+    private final int mask;
+    private final int dimensions;
+    private final int fullPeriod;
+    private final byte[] trees;
+    private final int[] ids;
+    private final int[] parents;
+    private final boolean[] full;
+    /** the coordinates of slot i occupy coords[i*dimensions, (i+1)*dimensions) */
+    private final double[] coords;
+
+    /** the number of events whose slot has been or is being written */
+    private final AtomicLong claimed = new AtomicLong();
+    /** the number of events completely written */
+    private final AtomicLong published = new AtomicLong();
+    /** the next event to read, only used by the reader */
+    private long next = 0;
+    private long lost = 0;
+
+    /**
+     * @param capacity: the number of events kept, rounded up to a power of 2
+     * @param dimensions: the number of c-space coordinates of a state
+     * @param fullPeriod: how often an event holds all the coordinates
+     */
+    public TreeEventBuffer(int capacity, int dimensions, int fullPeriod) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.dimensions = dimensions;
+        this.fullPeriod = fullPeriod;
+        trees = new byte[size];
+        ids = new int[size];
+        parents = new int[size];
+        full = new boolean[size];
+        coords = new double[size*dimensions];
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /*
+     * add the state stored at the given offset; called by the planner thread only
+     */
+    void publish(int tree, int id, int parent, double[] source, int offset) {
+        long sequence = claimed.get();
+        claimed.lazySet(sequence + 1);
+        // the slot must not be written before the claim is visible
+        VarHandle.storeStoreFence();
+        int slot = (int) sequence & mask;
+        trees[slot] = (byte) tree;
+        ids[slot] = id;
+        parents[slot] = parent;
+        boolean isFull = sequence % fullPeriod == 0;
+        full[slot] = isFull;
+        System.arraycopy(source, offset, coords, slot*dimensions, isFull? dimensions : 2);
+        published.lazySet(sequence + 1);
+    }
+
+    /**
+     * read the next event; called by the reader thread only
+     * @param event: filled with the event
+     * @return false if no event is waiting
+     */
+    public boolean poll(TreeEvent event) {
+        while (true) {
+            long available = published.get();
+            if (next >= available) {
+                return false;
+            }
+            if (available - next > mask + 1) {
+                // overwritten before they were read
+                lost += available - (mask + 1) - next;
+                next = available - (mask + 1);
+            }
+            int slot = (int) next & mask;
+            event.tree = trees[slot];
+            event.id = ids[slot];
+            event.parent = parents[slot];
+            event.full = full[slot];
+            System.arraycopy(coords, slot*dimensions, event.coords, 0,
+                    event.full? dimensions : 2);
+            // the copy must be complete before the claim is checked
+            VarHandle.acquireFence();
+            if (claimed.get() - next <= mask + 1) {
+                next++;
+                return true;
+            }
+            // the slot was overwritten while it was copied, skip ahead
+        }
+    }
+
+    /**
+     * the number of events the reader has skipped because they were overwritten
+     */
+    public long getLost() {
+        return lost;
+    }
+
+    /**
+     * one event, reused by the reader
+     */
+    public static class TreeEvent {
+        private int tree;
+        private int id;
+        private int parent;
+        private boolean full;
+        private final double[] coords;
+
+        public TreeEvent(int dimensions) {
+            coords = new double[dimensions];
+        }
+
+        public int getTree() {
+            return tree;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * the id of the parent in the same tree, or -1 for a root
+         */
+        public int getParent() {
+            return parent;
+        }
+
+        /**
+         * whether getCoords() holds all the coordinates, not only the base position
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        public double[] getCoords() {
+            return coords;
+        }
+
+        /**
+         * the workspace state of a full event, or null for other events
+         */
+        public ASVConfig toASVConfig() {
+            return full? new ASVConfig(Planner.cfgToArray(coords)) : null;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package tester;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import rrt.ASVConfig;
+import rrt.Obstacle;
+import rrt.ProblemSpec;
+import rrt.SolutionReader;
+
+/**
+ * Runs every per-state check of a Tester over a path in a single pass. A
+ * loaded path is split into chunks which are checked on a fork-join pool; the
+ * failing indices of each check are concatenated in chunk order, so they come
+ * out in the same ascending order as a sequential walk of the path.
+ * 
+ * Alternatively, stream() reads the states of a solution file one at a time
+ * and keeps only the previous state, the first state and the failing indices.
+ */
+public class PathValidation {
+    /** Check for the step into a state from the previous one */
+    public static final int STEP = 0;
+    /** Check for the boom lengths of a state */
+    public static final int BOOMS = 1;
+    /** Check for the convexity of a state */
+    public static final int CONVEXITY = 2;
+    /** Check for the area of a state */
+    public static final int AREA = 3;
+    /** Check for a state fitting within the workspace bounds */
+    public static final int BOUNDS = 4;
+    /** Check for a state colliding with the obstacles */
+    public static final int COLLISION = 5;
+    private static final int CHECK_COUNT = 6;
+
+    /** Chunks of at most this many states are checked sequentially */
+    private static final int CHUNK_SIZE = 2048;
+
+    /** The failing indices of each check */
+    private int[][] failures;
+    /** The number of states in the path */
+    private long stateCount;
+    /** The first and last states of the path */
+    private ASVConfig firstState;
+    private ASVConfig lastState;
+    /** The cost given by the solution */
+    private double solutionCost;
+    /** The cost calculated from the path */
+    private double actualCost;
+
+    /**
+     * Validates the given path.
+     *
+     * @param tester
+     *            the tester providing the checks; they must be safe to call
+     *            from several threads.
+     * @param ps
+     *            the problem and its loaded path, which must support
+     *            concurrent reads.
+     * @param maxError
+     *            the maximum error allowed by the tester.
+     * @param pool
+     *            the pool to run the chunks on.
+     */
+    public PathValidation(Tester tester, ProblemSpec ps, double maxError,
+            ForkJoinPool pool) {
+        List<ASVConfig> path = ps.getPathView();
+        Rectangle2D[] lenientRects = getLenientRects(ps, maxError);
+        Chunk root = new Chunk(tester, path, lenientRects, 0, path.size());
+        failures = pool.invoke(root).toArrays();
+        stateCount = path.size();
+        firstState = path.get(0);
+        lastState = path.get(path.size() - 1);
+        solutionCost = ps.getSolutionCost();
+        actualCost = ps.calculateTotalCost();
+    }
+
+    private PathValidation() {
+    }
+
+    /**
+     * Validates a solution file without loading it, reading one state at a
+     * time.
+     *
+     * @param tester
+     *            the tester providing the checks.
+     * @param ps
+     *            the problem the solution is for.
+     * @param filename
+     *            the path of the solution file.
+     * @param maxError
+     *            the maximum error allowed by the tester.
+     * @return the results of the checks.
+     * @throws IOException
+     *             if the solution file is invalid.
+     */
+    public static PathValidation stream(Tester tester, ProblemSpec ps,
+            String filename, double maxError) throws IOException {
+        PathValidation validation = new PathValidation();
+        Rectangle2D[] lenientRects = getLenientRects(ps, maxError);
+        Failures failures = new Failures();
+        SolutionReader reader = new SolutionReader(filename, ps.getASVCount());
+        try {
+            validation.solutionCost = reader.getCost();
+            if (!reader.hasNext()) {
+                throw new IOException("Solution has no states.");
+            }
+            if (reader.getStateCount() > Integer.MAX_VALUE) {
+                throw new IOException(String.format(
+                        "Solution of %d states is too long",
+                        reader.getStateCount()));
+            }
+            ASVConfig previous = null;
+            double cost = 0;
+            for (int i = 0; reader.hasNext(); i++) {
+                ASVConfig cfg = reader.next();
+                if (previous == null) {
+                    validation.firstState = cfg;
+                } else {
+                    cost += previous.totalDistance(cfg);
+                }
+                check(tester, lenientRects, previous, cfg, i, failures);
+                previous = cfg;
+            }
+            validation.stateCount = reader.getStateCount();
+            validation.lastState = previous;
+            validation.actualCost = cost;
+        } finally {
+            reader.close();
+        }
+        validation.failures = failures.toArrays();
+        return validation;
+    }
+
+    /**
+     * Returns the obstacles of the problem shrunk by the maximum error; they
+     * are shrunk once rather than once per state.
+     */
+    private static Rectangle2D[] getLenientRects(ProblemSpec ps,
+            double maxError) {
+        List<Obstacle> obstacles = ps.getObstacleView();
+        Rectangle2D[] lenientRects = new Rectangle2D[obstacles.size()];
+        for (int i = 0; i < lenientRects.length; i++) {
+            lenientRects[i] = Tester.grow(obstacles.get(i).getRect(),
+                    -maxError);
+        }
+        return lenientRects;
+    }
+
+    /**
+     * Runs every check on the state with the given index, given the previous
+     * state (null for the first one).
+     */
+    private static void check(Tester tester, Rectangle2D[] lenientRects,
+            ASVConfig previous, ASVConfig cfg, int i, Failures failures) {
+        if (previous != null && !tester.isValidStep(previous, cfg)) {
+            failures.add(STEP, i);
+        }
+        if (!tester.hasValidBoomLengths(cfg)) {
+            failures.add(BOOMS, i);
+        }
+        if (!tester.isConvex(cfg)) {
+            failures.add(CONVEXITY, i);
+        }
+        if (!tester.hasEnoughArea(cfg)) {
+            failures.add(AREA, i);
+        }
+        if (!tester.fitsBounds(cfg)) {
+            failures.add(BOUNDS, i);
+        }
+        if (tester.hasCollision(cfg, lenientRects)) {
+            failures.add(COLLISION, i);
+        }
+    }
+
+    /**
+     * Returns the ascending indices of the states failing the given check. For
+     * STEP, index i refers to the step from state i - 1 to state i.
+     *
+     * @param check
+     *            one of the check constants.
+     * @return the indices of the failing states.
+     */
+    public int[] getFailures(int check) {
+        return failures[check];
+    }
+
+    /**
+     * Returns the number of states in the path.
+     *
+     * @return the number of states in the path.
+     */
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns the first state of the path.
+     *
+     * @return the first state of the path.
+     */
+    public ASVConfig getFirstState() {
+        return firstState;
+    }
+
+    /**
+     * Returns the last state of the path.
+     *
+     * @return the last state of the path.
+     */
+    public ASVConfig getLastState() {
+        return lastState;
+    }
+
+    /**
+     * Returns the cost given by the solution.
+     *
+     * @return the cost given by the solution.
+     */
+    public double getSolutionCost() {
+        return solutionCost;
+    }
+
+    /**
+     * Returns the total cost calculated from the states of the path.
+     *
+     * @return the calculated cost of the path.
+     */
+    public double getActualCost() {
+        return actualCost;
+    }
+
+    /**
+     * The failing indices found in a range of the path.
+     */
+    private static class Failures {
+        private int[][] indices = new int[CHECK_COUNT][];
+        private int[] counts = new int[CHECK_COUNT];
+
+        public Failures() {
+            for (int i = 0; i < CHECK_COUNT; i++) {
+                indices[i] = new int[4];
+            }
+        }
+
+        public void add(int check, int index) {
+            if (counts[check] == indices[check].length) {
+                indices[check] = Arrays.copyOf(indices[check],
+                        counts[check] * 2);
+            }
+            indices[check][counts[check]++] = index;
+        }
+
+        /**
+         * Appends the failures of the following range.
+         */
+        public void addAll(Failures next) {
+            for (int c = 0; c < CHECK_COUNT; c++) {
+                for (int i = 0; i < next.counts[c]; i++) {
+                    add(c, next.indices[c][i]);
+                }
+            }
+        }
+
+        public int[][] toArrays() {
+            int[][] result = new int[CHECK_COUNT][];
+            for (int c = 0; c < CHECK_COUNT; c++) {
+                result[c] = Arrays.copyOf(indices[c], counts[c]);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Checks the states in [from, to), splitting the range while it is larger
+     * than CHUNK_SIZE.
+     */
+    private static class Chunk extends RecursiveTask<Failures> {
+        private static final long serialVersionUID = 1L;
+
+        private Tester tester;
+        private List<ASVConfig> path;
+        private Rectangle2D[] lenientRects;
+        private int from;
+        private int to;
+
+        public Chunk(Tester tester, List<ASVConfig> path,
+                Rectangle2D[] lenientRects, int from, int to) {
+            this.tester = tester;
+            this.path = path;
+            this.lenientRects = lenientRects;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Failures compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                Chunk left = new Chunk(tester, path, lenientRects, from, middle);
+                Chunk right = new Chunk(tester, path, lenientRects, middle, to);
+                right.fork();
+                Failures failures = left.compute();
+                failures.addAll(right.join());
+                return failures;
+            }
+            Failures failures = new Failures();
+            ASVConfig previous = from > 0 ? path.get(from - 1) : null;
+            for (int i = from; i < to; i++) {
+                ASVConfig cfg = path.get(i);
+                check(tester, lenientRects, previous, cfg, i, failures);
+                previous = cfg;
+            }
+            return failures;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 import rrt.ASVConfig;
 import rrt.Obstacle;
@@ -57,6 +58,10 @@ public class Tester {
     private double maxError;
     /** The workspace bounds, with allowable error. */
     private Rectangle2D lenientBounds;
+    /** The pool the per-state checks run on */
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    /** The results of the per-state checks, computed on first use */
+    private PathValidation validation;
 
     /**
      * Constructor. Creates a Tester with the default value for maximum error.
@@ -76,6 +81,82 @@ public class Tester {
         lenientBounds = grow(BOUNDS, maxError);
     }
 
+    /**
+     * Returns the results of all per-state checks of the loaded path, running
+     * them in a single parallel pass the first time.
+     *
+     * @return the results of the per-state checks.
+     */
+    public PathValidation getValidation() {
+        if (validation == null) {
+            validation = new PathValidation(this, ps, maxError, pool);
+        }
+        return validation;
+    }
+
+    /**
+     * Loads a problem and a solution to test, replacing any loaded before.
+     *
+     * @param problemPath
+     *            the problem file.
+     * @param solutionPath
+     *            the solution file, in text or binary format.
+     * @throws IOException
+     *             if either file cannot be read or is invalid.
+     */
+    public void load(String problemPath, String solutionPath)
+            throws IOException {
+        ps.loadProblem(problemPath);
+        ps.loadSolution(solutionPath);
+        validation = null;
+    }
+
+    /**
+     * Runs all the tests of main on the loaded solution, without printing.
+     *
+     * @return the names of the failed tests, as accepted by testByName; empty
+     *         if the solution is valid.
+     */
+    public List<String> getFailedTests() {
+        List<String> failed = new ArrayList<String>();
+        if (!hasInitialFirst()) {
+            failed.add("initial");
+        }
+        if (!hasGoalLast()) {
+            failed.add("goal");
+        }
+        if (Math.abs(getValidation().getSolutionCost()
+                - getValidation().getActualCost()) > maxError) {
+            failed.add("cost");
+        }
+        String[] names = { "steps", "booms", "convexity", "areas", "bounds",
+                "collisions" };
+        int[] checks = { PathValidation.STEP, PathValidation.BOOMS,
+                PathValidation.CONVEXITY, PathValidation.AREA,
+                PathValidation.BOUNDS, PathValidation.COLLISION };
+        for (int i = 0; i < checks.length; i++) {
+            if (getValidation().getFailures(checks[i]).length > 0) {
+                failed.add(names[i]);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Returns the failing indices of the given check as a list, printing
+     * each index first if requested.
+     */
+    private List<Integer> getFailures(int check, int delta, boolean print) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (int i : getValidation().getFailures(check)) {
+            if (print) {
+                System.out.println(i);
+            }
+            result.add(i + delta);
+        }
+        return result;
+    }
+
     /**
      * Checks that the first configuration in the solution path is the initial
      * configuration.
@@ -98,7 +179,8 @@ public class Tester {
      * @return whether the first cfg is the initial cfg.
      */
     public boolean hasInitialFirst() {
-        return ps.getPath().get(0).maxDistance(ps.getInitialState()) <= maxError;
+        return getValidation().getFirstState().maxDistance(
+                ps.getInitialState()) <= maxError;
     }
 
     /**
@@ -122,8 +204,7 @@ public class Tester {
      * @return whether the last cfg is the goal cfg.
      */
     public boolean hasGoalLast() {
-        List<ASVConfig> path = ps.getPath();
-        return path.get(path.size() - 1).maxDistance(ps.getGoalState()) <= maxError;
+        return getValidation().getLastState().maxDistance(ps.getGoalState()) <= maxError;
     }
 
     /**
@@ -151,7 +232,7 @@ public class Tester {
         if (!badSteps.isEmpty()) {
             System.out.println(String.format(
                     "FAILED: Distance exceeds 0.001 for %d of %d step(s).",
-                    badSteps.size(), ps.getPath().size() - 1));
+                    badSteps.size(), getValidation().getStateCount() - 1));
             if (verbose) {
                 System.out.println("Starting line for each invalid step:");
                 System.out.println(addToAll(badSteps, 2));
@@ -169,18 +250,7 @@ public class Tester {
      * @return the preceding path indices of any invalid steps.
      */
     public List<Integer> getInvalidSteps() {
-        List<Integer> badSteps = new ArrayList<Integer>();
-        List<ASVConfig> path = ps.getPath();
-        ASVConfig state = path.get(0);
-        for (int i = 1; i < path.size(); i++) {
-            ASVConfig nextState = path.get(i);
-            if (!isValidStep(state, nextState)) {
-                System.out.println(i);
-                badSteps.add(i - 1);
-            }
-            state = nextState;
-        }
-        return badSteps;
+        return getFailures(PathValidation.STEP, -1, true);
     }
 
     /**
@@ -206,7 +276,7 @@ public class Tester {
         if (!badStates.isEmpty()) {
             System.out.println(String.format(
                     "FAILED: Invalid boom length for %d of %d state(s).",
-                    badStates.size(), ps.getPath().size()));
+                    badStates.size(), getValidation().getStateCount()));
             if (verbose) {
                 if (verbose) {
                     System.out.println("Line for each invalid cfg:");
@@ -226,14 +296,7 @@ public class Tester {
      * @return the path indices of any states with invalid booms.
      */
     public List<Integer> getInvalidBoomStates() {
-        List<Integer> badStates = new ArrayList<Integer>();
-        List<ASVConfig> path = ps.getPath();
-        for (int i = 0; i < path.size(); i++) {
-            if (!hasValidBoomLengths(path.get(i))) {
-                badStates.add(i);
-            }
-        }
-        return badStates;
+        return getFailures(PathValidation.BOOMS, 0, false);
     }
 
     /**
@@ -268,7 +331,7 @@ public class Tester {
         if (!badStates.isEmpty()) {
             System.out.println(String.format(
                     "FAILED: %d of %d state(s) are not convex.",
-                    badStates.size(), ps.getPath().size()));
+                    badStates.size(), getValidation().getStateCount()));
             if (verbose) {
                 System.out.println("Line for each invalid cfg:");
                 System.out.println(addToAll(badStates, 2));
@@ -286,14 +349,7 @@ public class Tester {
      * @return the path indices of any non-convex states.
      */
     public List<Integer> getNonConvexStates() {
-        List<Integer> badStates = new ArrayList<Integer>();
-        List<ASVConfig> path = ps.getPath();
-        for (int i = 0; i < path.size(); i++) {
-            if (!isConvex(path.get(i))) {
-                badStates.add(i);
-            }
-        }
-        return badStates;
+        return getFailures(PathValidation.CONVEXITY, 0, false);
     }
 
     /**
@@ -376,7 +432,7 @@ public class Tester {
         if (!badStates.isEmpty()) {
             System.out.println(String.format(
                     "FAILED: %d of %d state(s) have insufficient area.",
-                    badStates.size(), ps.getPath().size()));
+                    badStates.size(), getValidation().getStateCount()));
             if (verbose) {
                 System.out.println("Line for each invalid cfg:");
                 System.out.println(addToAll(badStates, 2));
@@ -394,15 +450,7 @@ public class Tester {
      * @return the path indices of any states with insufficient area.
      */
     public List<Integer> getInvalidAreaStates() {
-        List<ASVConfig> path = ps.getPath();
-        List<Integer> badStates = new ArrayList<Integer>();
-        for (int i = 0; i < path.size(); i++) {
-            if (!hasEnoughArea(path.get(i))) {
-                System.out.println(i);
-                badStates.add(i);
-            }
-        }
-        return badStates;
+        return getFailures(PathValidation.AREA, 0, true);
     }
 
     /**
@@ -434,7 +482,7 @@ public class Tester {
         if (!badStates.isEmpty()) {
             System.out.println(String.format("FAILED: %d of %d"
                     + " state(s) go out of the workspace bounds.",
-                    badStates.size(), ps.getPath().size()));
+                    badStates.size(), getValidation().getStateCount()));
             if (verbose) {
                 System.out.println("Line for each invalid cfg:");
                 System.out.println(addToAll(badStates, 2));
@@ -452,15 +500,7 @@ public class Tester {
      * @return the path indices of any states that are out of bounds.
      */
     public List<Integer> getOutOfBoundsStates() {
-        List<ASVConfig> path = ps.getPath();
-        List<Integer> badStates = new ArrayList<Integer>();
-        for (int i = 0; i < path.size(); i++) {
-            if (!fitsBounds(path.get(i))) {
-                System.out.println(i);
-                badStates.add(i);
-            }
-        }
-        return badStates;
+        return getFailures(PathValidation.BOUNDS, 0, true);
     }
 
     /**
@@ -489,7 +529,7 @@ public class Tester {
         if (!badStates.isEmpty()) {
             System.out.println(String.format(
                     "FAILED: %d of %d state(s) collide with obstacles.",
-                    badStates.size(), ps.getPath().size()));
+                    badStates.size(), getValidation().getStateCount()));
             if (verbose) {
                 System.out.println("Line for each invalid cfg:");
                 System.out.println(addToAll(badStates, 2));
@@ -507,15 +547,7 @@ public class Tester {
      * @return the path indices of any states that collide with obstacles.
      */
     public List<Integer> getCollidingStates() {
-        List<ASVConfig> path = ps.getPath();
-        List<Integer> badStates = new ArrayList<Integer>();
-        for (int i = 0; i < path.size(); i++) {
-            if (hasCollision(path.get(i), ps.getObstacles())) {
-                System.out.println(i);
-                badStates.add(i);
-            }
-        }
-        return badStates;
+        return getFailures(PathValidation.COLLISION, 0, true);
     }
 
     /**
@@ -548,12 +580,28 @@ public class Tester {
      * @return whether the given config collides with the given obstacle.
      */
     public boolean hasCollision(ASVConfig cfg, Obstacle o) {
-        Rectangle2D lenientRect = grow(o.getRect(), -maxError);
+        return hasCollision(cfg,
+                new Rectangle2D[] { grow(o.getRect(), -maxError) });
+    }
+
+    /**
+     * Returns whether the given config intersects any of the given obstacle
+     * rectangles, which should already be shrunk by the maximum error.
+     *
+     * @param cfg
+     *            the configuration to test.
+     * @param lenientRects
+     *            the shrunk obstacle rectangles to test against.
+     * @return whether the given config intersects any of the rectangles.
+     */
+    public boolean hasCollision(ASVConfig cfg, Rectangle2D[] lenientRects) {
         List<Point2D> points = cfg.getASVPositions();
-        for (int i = 1; i < points.size(); i++) {
-            if (new Line2D.Double(points.get(i - 1), points.get(i))
-                    .intersects(lenientRect)) {
-                return true;
+        for (Rectangle2D lenientRect : lenientRects) {
+            for (int i = 1; i < points.size(); i++) {
+                if (new Line2D.Double(points.get(i - 1), points.get(i))
+                        .intersects(lenientRect)) {
+                    return true;
+                }
             }
         }
         return false;
@@ -564,8 +612,8 @@ public class Tester {
      */
     public boolean testTotalCost(int testNo, boolean verbose) {
         System.out.println(String.format("Test #%d: Solution cost", testNo));
-        double cost = ps.getSolutionCost();
-        double actualCost = ps.calculateTotalCost();
+        double cost = getValidation().getSolutionCost();
+        double actualCost = getValidation().getActualCost();
         if (Math.abs(cost - actualCost) > maxError) {
             System.out.println(String.format(
                     "FAILED: Incorrect solution cost; was %f but should be %f",
@@ -606,7 +654,8 @@ public class Tester {
     }
 
     /**
-     * Runs all 9 test cases from the command line.
+     * Runs all 9 test cases from the command line. With -s the solution is
+     * validated while it is read, without being loaded into memory.
      *
      * @param args
      *            the command line arguments.
@@ -614,6 +663,8 @@ public class Tester {
     public static void main(String[] args) {
         double maxError = DEFAULT_MAX_ERROR;
         boolean verbose = false;
+        int threads = 0;
+        boolean streaming = false;
         String problemPath = null;
         String solutionPath = null;
         for (int i = 0; i < args.length; i++) {
@@ -625,6 +676,13 @@ public class Tester {
                 }
             } else if (arg.equals("-v")) {
                 verbose = true;
+            } else if (arg.equals("-s")) {
+                streaming = true;
+            } else if (arg.equals("-t")) {
+                i++;
+                if (i < args.length) {
+                    threads = Integer.valueOf(args[i]);
+                }
             } else {
                 if (problemPath == null) {
                     problemPath = arg;
@@ -634,12 +692,15 @@ public class Tester {
             }
         }
         if (problemPath == null) {
-            System.out.println("Usage: tester [-e maxError] [-v] "
-                    + "problem-file [solution-file]");
+            System.out.println("Usage: tester [-e maxError] [-v] [-t threads] "
+                    + "[-s] problem-file [solution-file]");
             System.exit(1);
         }
         System.out.println("Test #0: Loading files");
         Tester tester = new Tester(maxError);
+        if (threads > 0) {
+            tester.pool = new ForkJoinPool(threads);
+        }
         try {
             tester.ps.loadProblem(problemPath);
         } catch (IOException e1) {
@@ -648,7 +709,16 @@ public class Tester {
             System.exit(1);
         }
 
-        if (solutionPath != null) {
+        if (solutionPath != null && streaming) {
+            try {
+                tester.validation = PathValidation.stream(tester, tester.ps,
+                        solutionPath, maxError);
+            } catch (IOException e1) {
+                System.out.println("FAILED: Invalid solution file");
+                System.out.println(e1.getMessage());
+                System.exit(1);
+            }
+        } else if (solutionPath != null) {
             try {
                 tester.ps.loadSolution(solutionPath);
             } catch (IOException e1) {
@@ -12,6 +12,8 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.JComponent;
@@ -19,6 +21,7 @@ import javax.swing.Timer;
 
 import rrt.Obstacle;
 import rrt.ProblemSpec;
+import rrt.TreeEventBuffer;
 import rrt.ASVConfig;
 
 public class VisualisationPanel extends JComponent {
@@ -42,6 +45,34 @@ public class VisualisationPanel extends JComponent {
 
 	private int samplingPeriod = 100;
 
+	/** the most states of the path overview drawn per pixel column */
+	private static final int MAX_STATES_PER_COLUMN = 4;
+	/**
+	 * the obstacles and, unless animating, the initial and goal states or the
+	 * path overview; rendered again when the panel is resized or the display
+	 * changes
+	 */
+	private BufferedImage background;
+
+	/** the most events read from a live search per frame */
+	private static final int MAX_LIVE_EVENTS = 50000;
+	private static final Color[] LIVE_COLORS = { new Color(0, 0, 160),
+			new Color(0, 128, 0) };
+	/** the events of a running search, or null if not watching one */
+	private TreeEventBuffer liveEvents;
+	private TreeEventBuffer.TreeEvent liveEvent;
+	private Timer liveTimer;
+	/** the states received of the initial and goal trees */
+	private LiveTree[] liveTrees;
+	/** the edges of the trees, drawn as they arrive */
+	private BufferedImage treeLayer;
+	/**
+	 * the scale of the device the panel was last painted on; the cached
+	 * layers have one pixel per device pixel so that they stay sharp on
+	 * HiDPI displays
+	 */
+	private double deviceScaleX = 1, deviceScaleY = 1;
+
 	public VisualisationPanel(Visualiser visualiser) {
 		super();
 		this.setBackground(Color.WHITE);
@@ -51,6 +82,7 @@ public class VisualisationPanel extends JComponent {
 
 	public void setDisplayingSolution(boolean displayingSolution) {
 		this.displayingSolution = displayingSolution;
+		background = null;
 		repaint();
 	}
 
@@ -73,8 +105,9 @@ public class VisualisationPanel extends JComponent {
 			animationTimer.stop();
 		}
 		animating = true;
+		background = null;
 		gotoFrame(0);
-		maxFrameNumber = problemSetup.getPath().size() - 1;
+		maxFrameNumber = problemSetup.getPathView().size() - 1;
 		animationTimer = new Timer(framePeriod, new ActionListener() {
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
@@ -99,7 +132,7 @@ public class VisualisationPanel extends JComponent {
 		}
 		this.frameNumber = frameNumber;
 		visualiser.setFrameNumber(frameNumber);
-		currentState = problemSetup.getPath().get(frameNumber);
+		currentState = problemSetup.getPathView().get(frameNumber);
 		repaint();
 	}
 
@@ -125,6 +158,7 @@ public class VisualisationPanel extends JComponent {
 			animationTimer.stop();
 		}
 		animating = false;
+		background = null;
 		visualiser.setPlaying(false);
 		frameNumber = null;
 	}
@@ -144,17 +178,16 @@ public class VisualisationPanel extends JComponent {
 		}
 		Path2D.Float path = new Path2D.Float();
 
-		List<Point2D> points = s.getASVPositions();
-		Point2D p = points.get(0);
+		Point2D p = s.getPosition(0);
 		path.moveTo(p.getX(), p.getY());
-		for (int i = 1; i < points.size(); i++) {
-			p = points.get(i);
+		for (int i = 1; i < s.getASVCount(); i++) {
+			p = s.getPosition(i);
 			path.lineTo(p.getX(), p.getY());
 		}
 		path.transform(transform);
 		g2.draw(path);
 		if (animating || !displayingSolution) {
-			p = transform.transform(points.get(0), null);
+			p = transform.transform(s.getPosition(0), null);
 			Color color = g2.getColor();
 			Stroke stroke = g2.getStroke();
 			g2.setColor(Color.BLACK);
@@ -165,25 +198,231 @@ public class VisualisationPanel extends JComponent {
 		}
 	}
 
+	/**
+	 * Starts showing the trees of a running search as its events arrive.
+	 */
+	public void startLive(TreeEventBuffer events) {
+		stopLive();
+		liveEvents = events;
+		liveEvent = new TreeEventBuffer.TreeEvent(events.getDimensions());
+		liveTrees = new LiveTree[] { new LiveTree(), new LiveTree() };
+		treeLayer = null;
+		liveTimer = new Timer(framePeriod, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				readLiveEvents();
+			}
+		});
+		liveTimer.start();
+		repaint();
+	}
+
+	/**
+	 * Stops showing a running search.
+	 */
+	public void stopLive() {
+		if (liveTimer != null) {
+			liveTimer.stop();
+			liveTimer = null;
+		}
+		liveEvents = null;
+		liveTrees = null;
+		treeLayer = null;
+		repaint();
+	}
+
+	public boolean isLive() {
+		return liveEvents != null;
+	}
+
+	/**
+	 * Reads the waiting events, drawing the new edges onto the tree layer.
+	 */
+	private void readLiveEvents() {
+		Graphics2D g2 = treeLayer == null ? null : createLayerGraphics(treeLayer);
+		for (int i = 0; i < MAX_LIVE_EVENTS && liveEvents.poll(liveEvent); i++) {
+			LiveTree tree = liveTrees[liveEvent.getTree()];
+			int id = liveEvent.getId();
+			double[] coords = liveEvent.getCoords();
+			tree.add(id, liveEvent.getParent(), coords[0], coords[1]);
+			if (liveEvent.isFull()) {
+				tree.latest = liveEvent.toASVConfig();
+			}
+			if (g2 != null) {
+				g2.setColor(LIVE_COLORS[liveEvent.getTree()]);
+				tree.paintEdge(g2, id);
+			}
+		}
+		if (g2 != null) {
+			g2.dispose();
+		}
+		repaint();
+	}
+
+	/**
+	 * Draws all the edges received so far into a new tree layer.
+	 */
+	private BufferedImage renderTreeLayer() {
+		BufferedImage image = createLayer(BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = createLayerGraphics(image);
+		for (int t = 0; t < liveTrees.length; t++) {
+			g2.setColor(LIVE_COLORS[t]);
+			for (int id = 0; id < liveTrees[t].size; id++) {
+				liveTrees[t].paintEdge(g2, id);
+			}
+		}
+		g2.dispose();
+		return image;
+	}
+
+	/**
+	 * The base positions and parents of the states received of one tree,
+	 * indexed by their id. States whose event was lost are unknown.
+	 */
+	private class LiveTree {
+		private double[] xs = new double[1024];
+		private double[] ys = new double[1024];
+		private int[] parents = new int[1024];
+		private int size = 0;
+		private int count = 0;
+		/** the last state received with all its coordinates */
+		private ASVConfig latest;
+
+		public void add(int id, int parent, double x, double y) {
+			if (id >= xs.length) {
+				int capacity = Math.max(2 * xs.length, id + 1);
+				xs = Arrays.copyOf(xs, capacity);
+				ys = Arrays.copyOf(ys, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+			}
+			for (int i = size; i < id; i++) {
+				parents[i] = -2;
+			}
+			size = Math.max(size, id + 1);
+			xs[id] = x;
+			ys[id] = y;
+			parents[id] = parent;
+			count++;
+		}
+
+		/**
+		 * Draws the edge from the parent of a state to the state, if both
+		 * are known, or a dot for a root.
+		 */
+		public void paintEdge(Graphics2D g2, int id) {
+			int parent = parents[id];
+			if (parent == -2 || (parent >= 0 && parents[parent] == -2)) {
+				return;
+			}
+			int from = parent < 0 ? id : parent;
+			double[] line = { xs[from], ys[from], xs[id], ys[id] };
+			transform.transform(line, 0, line, 0, 2);
+			g2.drawLine((int) line[0], (int) line[1], (int) line[2],
+					(int) line[3]);
+		}
+	}
+
 	public void setSamplingPeriod(int samplingPeriod) {
 		this.samplingPeriod = samplingPeriod;
+		background = null;
 		repaint();
 	}
 
 	public void paintComponent(Graphics graphics) {
 		super.paintComponent(graphics);
-		if (!problemSetup.problemLoaded()) {
+		if (!problemSetup.problemLoaded() || getWidth() <= 0 || getHeight() <= 0) {
 			return;
 		}
 		calculateTransform();
 		Graphics2D g2 = (Graphics2D) graphics;
+		deviceScaleX = g2.getTransform().getScaleX();
+		deviceScaleY = g2.getTransform().getScaleY();
+		if (!fitsPanel(background)) {
+			background = renderBackground();
+		}
+		drawLayer(g2, background);
+		if (liveEvents != null) {
+			paintLive(g2);
+		} else if (animating) {
+			g2.setStroke(new BasicStroke(2));
+			g2.setColor(Color.blue);
+			paintState(g2, currentState);
+		}
+	}
+
+	/**
+	 * Paints the trees of the running search, the last full state received
+	 * of each tree and the number of states received.
+	 */
+	private void paintLive(Graphics2D g2) {
+		if (!fitsPanel(treeLayer)) {
+			treeLayer = renderTreeLayer();
+		}
+		drawLayer(g2, treeLayer);
+		g2.setStroke(new BasicStroke(2));
+		for (int t = 0; t < liveTrees.length; t++) {
+			g2.setColor(LIVE_COLORS[t]);
+			paintState(g2, liveTrees[t].latest);
+		}
+		g2.setColor(Color.BLACK);
+		g2.drawString(String.format(
+				"initial tree: %d, goal tree: %d, events lost: %d",
+				liveTrees[0].count, liveTrees[1].count, liveEvents.getLost()),
+				5, 15);
+	}
+
+	/**
+	 * Creates an image covering the panel with one pixel per device pixel.
+	 */
+	private BufferedImage createLayer(int type) {
+		return new BufferedImage(toDevice(getWidth(), deviceScaleX),
+				toDevice(getHeight(), deviceScaleY), type);
+	}
+
+	/**
+	 * Creates a graphics context which draws onto a layer in the coordinates
+	 * of the panel.
+	 */
+	private Graphics2D createLayerGraphics(BufferedImage layer) {
+		Graphics2D g2 = layer.createGraphics();
+		g2.scale(deviceScaleX, deviceScaleY);
+		return g2;
+	}
+
+	/**
+	 * Whether a layer exists and covers the panel at the current device scale.
+	 */
+	private boolean fitsPanel(BufferedImage layer) {
+		return layer != null
+				&& layer.getWidth() == toDevice(getWidth(), deviceScaleX)
+				&& layer.getHeight() == toDevice(getHeight(), deviceScaleY);
+	}
+
+	/**
+	 * Draws a layer scaled back to the size of the panel.
+	 */
+	private void drawLayer(Graphics2D g2, BufferedImage layer) {
+		g2.drawImage(layer, 0, 0, getWidth(), getHeight(), null);
+	}
+
+	private static int toDevice(int size, double scale) {
+		return Math.max(1, (int) Math.round(size * scale));
+	}
+
+	/**
+	 * Renders everything but the animated state into a new image of the size
+	 * of the panel.
+	 */
+	private BufferedImage renderBackground() {
+		BufferedImage image = createLayer(BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = createLayerGraphics(image);
 		g2.setColor(Color.WHITE);
 		g2.fillRect(0, 0, getWidth(), getHeight());
 
-		List<Obstacle> obstacles = problemSetup.getObstacles();
+		List<Obstacle> obstacles = problemSetup.getObstacleView();
 		if (obstacles != null) {
 			g2.setColor(Color.red);
-			for (Obstacle obs : problemSetup.getObstacles()) {
+			for (Obstacle obs : obstacles) {
 				Shape transformed = transform.createTransformedShape(obs
 						.getRect());
 				g2.fill(transformed);
@@ -193,15 +432,7 @@ public class VisualisationPanel extends JComponent {
 		g2.setStroke(new BasicStroke(2));
 		if (!animating) {
 			if (displayingSolution) {
-				List<ASVConfig> path = problemSetup.getPath();
-				int lastIndex = path.size() - 1;
-				for (int i = 0; i < lastIndex; i += samplingPeriod) {
-					float t = (float) i / lastIndex;
-					g2.setColor(new Color(0, t, 1 - t));
-					paintState(g2, path.get(i));
-				}
-				g2.setColor(Color.green);
-				paintState(g2, path.get(lastIndex));
+				paintOverview(g2);
 			} else {
 				g2.setColor(Color.blue);
 				paintState(g2, problemSetup.getInitialState());
@@ -209,9 +440,28 @@ public class VisualisationPanel extends JComponent {
 				g2.setColor(Color.green);
 				paintState(g2, problemSetup.getGoalState());
 			}
-		} else {
-			g2.setColor(Color.blue);
-			paintState(g2, currentState);
 		}
+		g2.dispose();
+		return image;
+	}
+
+	/**
+	 * Paints every samplingPeriod-th state of the path. For long paths the
+	 * period is raised so that no more than MAX_STATES_PER_COLUMN states are
+	 * drawn per pixel column of the panel, spread evenly over the path.
+	 */
+	private void paintOverview(Graphics2D g2) {
+		List<ASVConfig> path = problemSetup.getPathView();
+		int lastIndex = path.size() - 1;
+		int maxStates = MAX_STATES_PER_COLUMN * getWidth();
+		int period = Math.max(samplingPeriod, (lastIndex + maxStates - 1)
+				/ maxStates);
+		for (int i = 0; i < lastIndex; i += period) {
+			float t = (float) i / lastIndex;
+			g2.setColor(new Color(0, t, 1 - t));
+			paintState(g2, path.get(i));
+		}
+		g2.setColor(Color.green);
+		paintState(g2, path.get(lastIndex));
 	}
 }
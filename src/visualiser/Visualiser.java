@@ -17,6 +17,7 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
@@ -36,10 +37,16 @@ import javax.swing.JSeparator;
 import javax.swing.JSlider;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EtchedBorder;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import rrt.ASVConfig;
+import rrt.Planner;
+import rrt.ProblemSpec;
+import rrt.TreeEventBuffer;
+
 public class Visualiser {
 	private Container container;
 
@@ -50,7 +57,7 @@ public class Visualiser {
 
 	private JMenuBar menuBar;
 	private JMenu fileMenu;
-	private JMenuItem loadProblemItem, loadSolutionItem, exitItem; // assumeDirectSolutionItem
+	private JMenuItem loadProblemItem, loadSolutionItem, planLiveItem, exitItem; // assumeDirectSolutionItem
 	private JMenu animationMenu;
 	private JMenuItem initialiseItem, playPauseItem, stopItem;
 	private JMenu displayMenu;
@@ -88,6 +95,12 @@ public class Visualiser {
 
 	private static final int SAMPLING_PERIOD_INIT = 100;
 
+	/** the events kept for a live search, and how often one is a full state */
+	private static final int LIVE_CAPACITY = 1 << 16;
+	private static final int LIVE_FULL_PERIOD = 64;
+	/** the search being watched, or null */
+	private Planner livePlanner;
+
 	private File defaultPath;
 
 	private class MenuListener implements ActionListener {
@@ -109,6 +122,8 @@ public class Visualiser {
 			} else if (cmd.equals("Load solution")) {
 				setAnimating(false);
 				loadSolution();
+			} else if (cmd.equals("Plan live")) {
+				planLive();
 			} else if (cmd.equals("Exit")) {
 				container.setVisible(false);
 				System.exit(0);
@@ -288,6 +303,12 @@ public class Visualiser {
 		loadSolutionItem.setEnabled(false);
 		fileMenu.add(loadSolutionItem);
 
+		planLiveItem = new JMenuItem("Plan live");
+		planLiveItem.setMnemonic(KeyEvent.VK_L);
+		planLiveItem.addActionListener(menuListener);
+		planLiveItem.setEnabled(false);
+		fileMenu.add(planLiveItem);
+
 		fileMenu.addSeparator();
 		exitItem = new JMenuItem("Exit");
 		exitItem.setMnemonic(KeyEvent.VK_X);
@@ -417,6 +438,7 @@ public class Visualiser {
 	}
 
 	private void loadProblem(File f) {
+		cancelLive();
 		try {
 			vp.getProblemSetup().loadProblem(f.getPath());
 			setHasProblem(true);
@@ -435,6 +457,7 @@ public class Visualiser {
 	}
 
 	private void loadSolution(File f) {
+		cancelLive();
 		try {
 			vp.getProblemSetup().loadSolution(f.getPath());
 			setHasSolution(true);
@@ -452,6 +475,70 @@ public class Visualiser {
 		loadSolution(f);
 	}
 
+	/**
+	 * Searches a path for the loaded problem in the background, showing the
+	 * trees as they grow, and then displays the path found.
+	 */
+	private void planLive() {
+		cancelLive();
+		setHasSolution(false);
+		final ProblemSpec ps = vp.getProblemSetup();
+		final Planner planner = new Planner(ps);
+		TreeEventBuffer events = new TreeEventBuffer(LIVE_CAPACITY,
+				ps.getASVCount() + 1, LIVE_FULL_PERIOD);
+		planner.setEventBuffer(events);
+		livePlanner = planner;
+		vp.startLive(events);
+		setInfoText();
+		Thread search = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				List<ASVConfig> solution = null;
+				try {
+					solution = planner.plan();
+				} finally {
+					// also leave live mode if the search failed
+					finishLive(ps, planner, solution);
+				}
+			}
+		}, "live search");
+		search.setDaemon(true);
+		search.start();
+	}
+
+	/**
+	 * Leaves live mode once a search has ended, showing its solution if it
+	 * found one and is still the search being watched.
+	 */
+	private void finishLive(final ProblemSpec ps, final Planner planner,
+			final List<ASVConfig> solution) {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (livePlanner != planner) {
+					return;
+				}
+				livePlanner = null;
+				vp.stopLive();
+				if (solution != null) {
+					ps.setPath(solution);
+				}
+				setHasSolution(solution != null);
+			}
+		});
+	}
+
+	/**
+	 * Stops the search being watched, if any.
+	 */
+	private void cancelLive() {
+		if (livePlanner != null) {
+			livePlanner.cancel();
+			livePlanner = null;
+			vp.stopLive();
+		}
+	}
+
 	private void playPause() {
 		if (!animating) {
 			setAnimating(true);
@@ -463,6 +550,10 @@ public class Visualiser {
 		if (!hasProblem) {
 			infoLabel.setText("No problem to display.");
 			samplingSpinner.setVisible(false);
+		} else if (vp.isLive()) {
+			infoLabel
+					.setText("Searching: blue = initial tree, green = goal tree.");
+			samplingSpinner.setVisible(false);
 		} else if (animating) {
 			infoLabel
 					.setText("Play the animation, or use the slider to control it manually.");
@@ -480,6 +571,7 @@ public class Visualiser {
 	private void setHasProblem(boolean hasProblem) {
 		this.hasProblem = hasProblem;
 		loadSolutionItem.setEnabled(hasProblem);
+		planLiveItem.setEnabled(hasProblem);
 		problemItem.setEnabled(hasProblem);
 		setHasSolution(false);
 		setInfoText();
@@ -538,7 +630,7 @@ public class Visualiser {
 	}
 
 	public void updateMaximum() {
-		int maximum = vp.getProblemSetup().getPath().size() - 1;
+		int maximum = vp.getProblemSetup().getPathView().size() - 1;
 		manualSlider.setMaximum(maximum);
 		updateTickSpacing();
 	}
@@ -590,7 +682,11 @@ public class Visualiser {
 		if (args.length > 0) {
 			vis.loadProblem(new File(args[0]));
 			if (vis.hasProblem() && args.length >= 2) {
-				vis.loadSolution(new File(args[1]));
+				if (args[1].equals("--live")) {
+					vis.planLive();
+				} else {
+					vis.loadSolution(new File(args[1]));
+				}
 			}
 		}
 		frame.setSize(700, 766);